@@ -0,0 +1,56 @@
+package org.landsreyk.webfluxspring.benchmark;
+
+import org.landsreyk.webfluxspring.Application;
+import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application without a web server against a fresh in-memory H2 database or the in-memory repository.
+ * The cache and lookup batching are off, so single-threaded benchmarks measure the lookup rather than a cache hit or
+ * the batching window.
+ */
+final class BenchmarkContexts {
+
+    static final int AUTHORS = 100;
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(String backend, String... properties) {
+        if (backend.equals("in-memory")) {
+            return new SpringApplicationBuilder(Application.class)
+                    .web(WebApplicationType.NONE)
+                    .profiles("in-memory")
+                    .properties(
+                            "books.bulk.batch-size=1000",
+                            "books.cache.enabled=false",
+                            "books.batching.enabled=false",
+                            "logging.level.root=warn")
+                    .properties(properties)
+                    .run();
+        }
+        return startH2(properties);
+    }
+
+    static ConfigurableApplicationContext startH2(String... properties) {
+        String database = "bench" + System.nanoTime();
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.r2dbc.url=r2dbc:h2:mem:///" + database + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "spring.liquibase.url=jdbc:h2:mem:" + database + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "books.bulk.batch-size=1000",
+                        "books.cache.enabled=false",
+                        "books.batching.enabled=false",
+                        "logging.level.root=warn")
+                .properties(properties)
+                .run();
+    }
+
+    static BookDTO book(int index) {
+        return new BookDTO(null, "Title " + index, "Author " + index % AUTHORS, 1900 + index % 125);
+    }
+}
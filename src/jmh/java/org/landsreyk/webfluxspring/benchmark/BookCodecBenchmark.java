@@ -0,0 +1,96 @@
+package org.landsreyk.webfluxspring.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes and decodes a page of books as JSON and as Smile. The payload sizes, raw and gzipped, are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BookCodecBenchmark {
+
+    @Param({"20", "1000"})
+    private int books;
+
+    private ObjectWriter jsonWriter;
+    private ObjectReader jsonReader;
+    private ObjectWriter smileWriter;
+    private ObjectReader smileReader;
+    private List<BookDTO> page;
+    private byte[] json;
+    private byte[] smile;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        var type = jsonMapper.getTypeFactory().constructCollectionType(List.class, BookDTO.class);
+        jsonWriter = jsonMapper.writerFor(type);
+        jsonReader = jsonMapper.readerFor(type);
+        smileWriter = smileMapper.writerFor(type);
+        smileReader = smileMapper.readerFor(type);
+        page = IntStream.range(0, books)
+                .mapToObj(BenchmarkContexts::book)
+                .map(book -> new BookDTO(UUID.randomUUID(), book.getTitle(), book.getAuthor(), book.getPublishedYear(), 0L))
+                .toList();
+        json = jsonWriter.writeValueAsBytes(page);
+        smile = smileWriter.writeValueAsBytes(page);
+        System.out.printf("%n%d books: json %d bytes (%d gzipped), smile %d bytes (%d gzipped)%n",
+                books, json.length, gzipped(json), smile.length, gzipped(smile));
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return jsonWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] encodeSmile() throws IOException {
+        return smileWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<BookDTO> decodeJson() throws IOException {
+        return jsonReader.readValue(json);
+    }
+
+    @Benchmark
+    public List<BookDTO> decodeSmile() throws IOException {
+        return smileReader.readValue(smile);
+    }
+
+    private static int gzipped(byte[] payload) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,80 @@
+package org.landsreyk.webfluxspring.benchmark;
+
+import org.landsreyk.webfluxspring.dto.BulkResultDTO;
+import org.landsreyk.webfluxspring.id.BookIdGenerator;
+import org.landsreyk.webfluxspring.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Insert throughput of time-ordered against random ids. Bulk batches go into a table that already holds
+ * {@code catalogSize} books, so random ids have to find their place all over the primary key index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class BookIdBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"time-ordered", "random"})
+    private String generator;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookIdGenerator bookIdGenerator;
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.startH2("books.ids.generator=" + generator);
+        bookService = context.getBean(BookService.class);
+        bookIdGenerator = context.getBean(BookIdGenerator.class);
+        bookService.createAll(Flux.range(0, catalogSize).map(BenchmarkContexts::book)).blockLast();
+        created.set(catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Books inserted per second through the bulk path.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public BulkResultDTO insert() {
+        int first = created.getAndAdd(BATCH_SIZE);
+        return bookService.createAll(Flux.range(first, BATCH_SIZE).map(BenchmarkContexts::book)).blockLast();
+    }
+
+    @Benchmark
+    public UUID generate() {
+        return bookIdGenerator.next();
+    }
+}
@@ -0,0 +1,328 @@
+package org.landsreyk.webfluxspring.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Closed-loop load test comparing the R2DBC stack with the {@code webflux-jdbc} profile. Both serve HTTP from WebFlux on
+ * Netty; the latter runs blocking JDBC on virtual threads, so this measures the data access, not a servlet stack.
+ * Each stack runs in its own JVM with the same heap, pool size and configuration, is seeded with the same books and
+ * receives the same request mix from the same number of clients; only the data access differs. The cache and
+ * admission control are disabled so that every request reaches the database.
+ * <p>
+ * Reports throughput, latency percentiles, and the resident memory, heap and threads the application gains under
+ * load, divided by the number of concurrent client connections.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec@load-test -Dload.args="--database=localhost:5432/bookstore --concurrency=256"
+ * mvn -Pbenchmark test-compile exec:exec@load-test -Dload.args="--database=h2 --duration=20s"
+ * </pre>
+ * Options: {@code --stacks=r2dbc,webflux-jdbc --concurrency=64 --warmup=15s --duration=60s --books=10000 --seed=42
+ * --database=h2|host:port/name --username=postgres --password=postgres --heap=1g}.
+ */
+public final class BookLoadTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Request mix in percent: lookups by id, offset pages, keyset pages, search, count, updates and creates.
+     */
+    private static final int[] MIX = {50, 10, 10, 10, 10, 5, 5};
+
+    private final Map<String, String> options;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private BookLoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        BookLoadTest loadTest = new BookLoadTest(options);
+        List<Result> results = new ArrayList<>();
+        for (String stack : loadTest.option("stacks", "r2dbc,webflux-jdbc").split(",")) {
+            results.add(loadTest.run(stack.trim()));
+        }
+        System.out.println();
+        System.out.printf("%-12s %10s %9s %9s %9s %9s %8s %12s %12s %10s%n",
+                "stack", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors", "threads", "rss/conn KB", "heap/conn KB", "pool");
+        results.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private Result run(String stack) throws Exception {
+        int concurrency = Integer.parseInt(option("concurrency", "64"));
+        int port = freePort();
+        Process application = start(stack, port);
+        try {
+            String baseUrl = "http://localhost:" + port;
+            awaitStartup(baseUrl, application);
+            List<UUID> ids = seed(baseUrl, Integer.parseInt(option("books", "10000")));
+            Memory idle = memory(baseUrl, application);
+
+            System.out.printf("%s: warming up with %d clients%n", stack, concurrency);
+            load(baseUrl, stack, ids, concurrency, duration("warmup", "15s"), new Recorder(3), new AtomicLong(), null);
+
+            System.out.printf("%s: measuring%n", stack);
+            Recorder recorder = new Recorder(3);
+            AtomicLong errors = new AtomicLong();
+            Memory[] peak = {idle};
+            Duration duration = duration("duration", "60s");
+            load(baseUrl, stack, ids, concurrency, duration, recorder, errors, () -> peak[0] = peak[0].max(memory(baseUrl, application)));
+            Histogram histogram = recorder.getIntervalHistogram();
+            return new Result(stack, histogram.getTotalCount() / (double) duration.toSeconds(),
+                    histogram.getValueAtPercentile(50) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getValueAtPercentile(99.9) / 1e6,
+                    errors.get(), peak[0].threads(),
+                    Math.max(0, peak[0].rss() - idle.rss()) / 1024 / concurrency,
+                    Math.max(0, peak[0].heap() - idle.heap()) / 1024 / concurrency,
+                    metric(baseUrl, stack.equals("webflux-jdbc") ? "hikaricp.connections.max" : "r2dbc.pool.max.allocated"));
+        } finally {
+            application.destroy();
+            application.waitFor();
+        }
+    }
+
+    /**
+     * Runs the clients until the deadline, sampling the application's memory once a second.
+     */
+    private void load(String baseUrl, String stack, List<UUID> ids, int concurrency, Duration duration,
+                      Recorder recorder, AtomicLong errors, Runnable sampler) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicBoolean running = new AtomicBoolean(true);
+        long seed = Long.parseLong(option("seed", "42"));
+        List<Thread> clients = IntStream.range(0, concurrency)
+                .mapToObj(client -> Thread.ofVirtual().start(() -> {
+                    SplittableRandom random = new SplittableRandom(seed + client);
+                    int sequence = 0;
+                    while (running.get()) {
+                        HttpRequest request = nextRequest(baseUrl, stack, ids, random, client, sequence++);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 500) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        recorder.recordValue(System.nanoTime() - start);
+                    }
+                }))
+                .toList();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(Math.min(1_000, Math.max(1, (deadline - System.nanoTime()) / 1_000_000)));
+            if (sampler != null) {
+                sampler.run();
+            }
+        }
+        running.set(false);
+        for (Thread client : clients) {
+            client.join();
+        }
+    }
+
+    private static HttpRequest nextRequest(String baseUrl, String stack, List<UUID> ids, SplittableRandom random, int client, int sequence) {
+        UUID id = ids.get(random.nextInt(ids.size()));
+        int pick = random.nextInt(100);
+        int operation = 0;
+        for (int bound = MIX[0]; pick >= bound; bound += MIX[operation]) {
+            operation++;
+        }
+        return switch (operation) {
+            case 0 -> get(baseUrl + "/books/" + id);
+            case 1 -> get(baseUrl + "/books?page=" + random.nextInt(100) + "&size=20");
+            case 2 -> get(baseUrl + "/books?size=20");
+            case 3 -> get(baseUrl + "/books/search?q=title+" + random.nextInt(100) + "&size=20");
+            case 4 -> get(baseUrl + "/books/count");
+            case 5 -> json(baseUrl + "/books/" + id, "PUT", book(null, "Title " + id, "Author " + random.nextInt(BenchmarkContexts.AUTHORS)));
+            default -> json(baseUrl + "/books", "POST", book(null, "Load " + stack + " " + client + " " + sequence, "Author " + random.nextInt(BenchmarkContexts.AUTHORS)));
+        };
+    }
+
+    private List<UUID> seed(String baseUrl, int books) throws IOException, InterruptedException {
+        SplittableRandom random = new SplittableRandom(Long.parseLong(option("seed", "42")));
+        List<UUID> ids = IntStream.range(0, books)
+                .mapToObj(i -> new UUID(random.nextLong(), random.nextLong()))
+                .toList();
+        String ndjson = IntStream.range(0, books)
+                .mapToObj(i -> book(ids.get(i), "Title " + ids.get(i), "Author " + i % BenchmarkContexts.AUTHORS))
+                .collect(Collectors.joining("\n"));
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/books/bulk"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .header("Accept", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(ndjson))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+        }
+        return ids;
+    }
+
+    private Process start(String stack, int port) throws IOException {
+        String database = option("database", "h2");
+        List<String> command = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-Xmx" + option("heap", "1g"),
+                "-cp", System.getProperty("java.class.path"),
+                "org.landsreyk.webfluxspring.Application",
+                "--server.port=" + port,
+                "--books.cache.enabled=false",
+                "--books.admission.enabled=false",
+                "--logging.level.root=warn"));
+        String jdbcUrl;
+        if (database.equals("h2")) {
+            String file = "./" + Files.createDirectories(Path.of("target", "load-test")).resolve(stack + "-" + System.nanoTime());
+            jdbcUrl = "jdbc:h2:file:" + file + ";MODE=PostgreSQL";
+            command.add("--spring.r2dbc.url=r2dbc:h2:file:///" + file + ";MODE=PostgreSQL");
+            command.add("--spring.r2dbc.username=sa");
+            command.add("--spring.r2dbc.password=");
+            command.add("--spring.datasource.username=sa");
+            command.add("--spring.datasource.password=");
+            command.add("--spring.liquibase.user=sa");
+            command.add("--spring.liquibase.password=");
+        } else {
+            jdbcUrl = "jdbc:postgresql://" + database;
+            command.add("--spring.r2dbc.url=r2dbc:postgresql://" + database);
+            for (String property : List.of("spring.r2dbc", "spring.datasource")) {
+                command.add("--" + property + ".username=" + option("username", "postgres"));
+                command.add("--" + property + ".password=" + option("password", "postgres"));
+            }
+        }
+        command.add("--spring.datasource.url=" + jdbcUrl);
+        command.add("--spring.liquibase.url=" + jdbcUrl);
+        if (stack.equals("webflux-jdbc")) {
+            command.add("--spring.profiles.active=webflux-jdbc");
+        }
+        System.out.printf("%s: starting on port %d%n", stack, port);
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    private void awaitStartup(String baseUrl, Process application) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (System.nanoTime() < deadline && application.isAlive()) {
+            try {
+                if (httpClient.send(get(baseUrl + "/actuator/health"), HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("Application did not start");
+    }
+
+    private Memory memory(String baseUrl, Process application) {
+        return new Memory(rss(application.pid()), (long) metric(baseUrl, "jvm.memory.used?tag=area:heap"), (long) metric(baseUrl, "jvm.threads.live"));
+    }
+
+    private double metric(String baseUrl, String name) {
+        try {
+            HttpResponse<String> response = httpClient.send(get(baseUrl + "/actuator/metrics/" + name), HttpResponse.BodyHandlers.ofString());
+            JsonNode measurements = OBJECT_MAPPER.readTree(response.body()).path("measurements");
+            return measurements.isEmpty() ? Double.NaN : measurements.get(0).path("value").asDouble();
+        } catch (IOException e) {
+            return Double.NaN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Resident set size of the process in bytes, or 0 where {@code /proc} is not available.
+     */
+    private static long rss(long pid) {
+        try {
+            return Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status")).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                    .findFirst()
+                    .orElse(0);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    private static HttpRequest json(String url, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String book(UUID id, String title, String author) {
+        return "{\"id\":%s,\"title\":\"%s\",\"author\":\"%s\",\"publishedYear\":%d}"
+                .formatted(id == null ? "null" : "\"" + id + "\"", title, author, 1900 + Math.abs(title.hashCode() % 125));
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private Duration duration(String name, String defaultValue) {
+        return Duration.parse("PT" + option(name, defaultValue).toUpperCase());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Memory(long rss, long heap, long threads) {
+
+        Memory max(Memory other) {
+            return new Memory(Math.max(rss, other.rss), Math.max(heap, other.heap), Math.max(threads, other.threads));
+        }
+    }
+
+    private record Result(String stack, double throughput, double p50, double p99, double p999, long errors,
+                          long threads, long rssPerConnection, long heapPerConnection, double poolSize) {
+
+        @Override
+        public String toString() {
+            return "%-12s %10.0f %9.2f %9.2f %9.2f %9d %8d %12d %12d %10.0f"
+                    .formatted(stack, throughput, p50, p99, p999, errors, threads, rssPerConnection, heapPerConnection, poolSize);
+        }
+    }
+}
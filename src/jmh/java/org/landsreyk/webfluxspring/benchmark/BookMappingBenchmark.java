@@ -0,0 +1,67 @@
+package org.landsreyk.webfluxspring.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.id.TimeOrderedBookIdGenerator;
+import org.landsreyk.webfluxspring.mapper.BookMapper;
+import org.landsreyk.webfluxspring.mapper.BookMapperImpl;
+import org.landsreyk.webfluxspring.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BookMappingBenchmark {
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private Book book;
+    private BookDTO bookDTO;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ReflectionTestUtils.setField(bookMapper, "bookIdGenerator", new TimeOrderedBookIdGenerator());
+        book = new Book("Reactive Programming with Spring", "Jane Doe", 2020);
+        bookDTO = bookMapper.mapToDTO(book);
+        json = objectMapper.writeValueAsBytes(bookDTO);
+    }
+
+    @Benchmark
+    public BookDTO mapToDTO() {
+        return bookMapper.mapToDTO(book);
+    }
+
+    @Benchmark
+    public Book mapToEntity() {
+        return bookMapper.mapToEntity(bookDTO);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(bookDTO);
+    }
+
+    @Benchmark
+    public BookDTO deserialize() throws IOException {
+        return objectMapper.readValue(json, BookDTO.class);
+    }
+}
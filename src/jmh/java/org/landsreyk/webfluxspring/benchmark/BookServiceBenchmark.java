@@ -0,0 +1,114 @@
+package org.landsreyk.webfluxspring.benchmark;
+
+import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.dto.BookPageDTO;
+import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.repository.ReactiveDatabaseBookRepository;
+import org.landsreyk.webfluxspring.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"h2", "in-memory"})
+    private String backend;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private ReactiveDatabaseBookRepository bookRepository;
+    private UUID[] ids;
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start(backend);
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(ReactiveDatabaseBookRepository.class);
+        bookService.createAll(Flux.range(0, catalogSize).map(BenchmarkContexts::book)).blockLast();
+        ids = bookRepository.findAll()
+                .map(Book::getId)
+                .collectList()
+                .block()
+                .toArray(UUID[]::new);
+        created.set(catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDTO create() {
+        return bookService.create(BenchmarkContexts.book(created.getAndIncrement())).block();
+    }
+
+    @Benchmark
+    public BookDTO getById() {
+        return bookService.getById(randomId()).block();
+    }
+
+    @Benchmark
+    public List<BookDTO> getAll() {
+        long page = ThreadLocalRandom.current().nextLong(catalogSize / PAGE_SIZE);
+        return bookService.getAll(page, PAGE_SIZE).collectList().block();
+    }
+
+    @Benchmark
+    public List<Book> getPageAfter() {
+        return bookRepository.findPageAfter(randomId(), PAGE_SIZE).collectList().block();
+    }
+
+    @Benchmark
+    public List<Book> findByAuthorAndYearRange() {
+        String author = "Author " + ThreadLocalRandom.current().nextInt(BenchmarkContexts.AUTHORS);
+        return bookRepository.findByAuthorAndYearRange(author, 1990, 2000).collectList().block();
+    }
+
+    /**
+     * Typeahead query; sampled so that the p99 can be compared with the search latency budget.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public BookPageDTO search() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String query = random.nextBoolean()
+                ? "auth " + random.nextInt(BenchmarkContexts.AUTHORS)
+                : "tit " + random.nextInt(1000);
+        return bookService.search(query, null, PAGE_SIZE).block();
+    }
+
+    private UUID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
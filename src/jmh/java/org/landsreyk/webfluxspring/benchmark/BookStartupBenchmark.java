@@ -0,0 +1,279 @@
+package org.landsreyk.webfluxspring.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+
+/**
+ * Startup of the plain jar, the jar with an AppCDS archive (an AOT cache on JDK 25 and later) and the native image.
+ * Every run starts a fresh process against the same, already migrated database and measures:
+ * <ul>
+ *     <li>ready - Spring's {@code application.ready.time}, from the start of the application to accepting
+ *     requests, including the Liquibase check and the connection pool warm-up;</li>
+ *     <li>first request - from launching the process to the first {@code GET /books} answered with 200, which
+ *     adds JVM boot, class loading and the first trip through the handler and the database;</li>
+ *     <li>rss - resident memory right after the first request.</li>
+ * </ul>
+ * The {@code cds} variant extracts the jar, records the archive in a training run that exits once the context is
+ * refreshed, and runs from the archive. A jar built with {@code -Pcds} also starts from the bean definitions
+ * generated ahead of time. The native image comes from {@code -Pnative native:compile}; variants whose artifact is
+ * missing are skipped. Ahead-of-time bean definitions are fixed at build time, so the {@code cds} and {@code native}
+ * variants run the profiles they were built with.
+ * <pre>
+ * mvn -Pcds package -DskipTests &amp;&amp; mvn -Pnative native:compile -DskipTests
+ * mvn -Pbenchmark test-compile exec:exec@startup -Dstartup.args="--database=localhost:5432/bookstore --runs=10"
+ * mvn -Pbenchmark test-compile exec:exec@startup -Dstartup.args="--variants=jar,cds --profiles=in-memory"
+ * </pre>
+ * Options: {@code --variants=jar,cds,native --runs=5 --jar=target/webflux-spring-0.0.1-SNAPSHOT.jar
+ * --native=target/webflux-spring --database=host:port/name --username=postgres --password=postgres --profiles=
+ * --heap=512m}.
+ */
+public final class BookStartupBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Path WORK_DIRECTORY = Path.of("target", "startup");
+
+    private final Map<String, String> options;
+    private final String java = ProcessHandle.current().info().command().orElse("java");
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private BookStartupBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        BookStartupBenchmark benchmark = new BookStartupBenchmark(options);
+        List<Result> results = new ArrayList<>();
+        for (String variant : benchmark.option("variants", "jar,cds,native").split(",")) {
+            List<String> command = benchmark.prepare(variant.trim());
+            if (command != null) {
+                results.add(benchmark.run(variant.trim(), command));
+            }
+        }
+        System.out.println();
+        System.out.printf("%-7s %5s %10s %17s %8s%n", "variant", "runs", "ready ms", "first request ms", "rss MB");
+        results.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    /**
+     * Returns the command that starts the variant, without the application arguments, or {@code null} to skip it.
+     */
+    private List<String> prepare(String variant) throws IOException, InterruptedException {
+        Path jar = Path.of(option("jar", "target/webflux-spring-0.0.1-SNAPSHOT.jar"));
+        switch (variant) {
+            case "jar" -> {
+                return requireArtifact(jar) ? List.of(java, "-Xmx" + option("heap", "512m"), "-jar", jar.toString()) : null;
+            }
+            case "cds" -> {
+                return requireArtifact(jar) ? prepareCds(jar) : null;
+            }
+            case "native" -> {
+                Path image = Path.of(option("native", "target/webflux-spring"));
+                return requireArtifact(image) ? List.of(image.toString(), "-Xmx" + option("heap", "512m")) : null;
+            }
+            default -> throw new IllegalArgumentException("Unknown variant " + variant);
+        }
+    }
+
+    /**
+     * Extracts the jar so that classes load from plain jars, which the archive requires, and records the archive.
+     */
+    private List<String> prepareCds(Path jar) throws IOException, InterruptedException {
+        Path directory = WORK_DIRECTORY.resolve("cds");
+        runStep("extracting " + jar, List.of(java, "-Djarmode=tools", "-jar", jar.toString(),
+                "extract", "--force", "--destination", directory.toString()));
+        Path extracted = directory.resolve(jar.getFileName());
+        boolean aotCache = Runtime.version().feature() >= 25;
+        Path archive = directory.resolve(aotCache ? "application.aot" : "application.jsa");
+
+        List<String> command = new ArrayList<>(List.of(java, "-Xmx" + option("heap", "512m")));
+        if (springAot(jar)) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        List<String> training = new ArrayList<>(command);
+        training.add(aotCache ? "-XX:AOTCacheOutput=" + archive : "-XX:ArchiveClassesAtExit=" + archive);
+        training.add("-Dspring.context.exit=onRefresh");
+        training.addAll(List.of("-jar", extracted.toString()));
+        training.addAll(applicationArguments(freePort()));
+        runStep("recording " + archive, training);
+
+        command.add(aotCache ? "-XX:AOTCache=" + archive : "-XX:SharedArchiveFile=" + archive);
+        command.addAll(List.of("-jar", extracted.toString()));
+        return command;
+    }
+
+    private Result run(String variant, List<String> command) throws IOException, InterruptedException {
+        int runs = Integer.parseInt(option("runs", "5"));
+        double[] ready = new double[runs];
+        double[] firstRequest = new double[runs];
+        double[] rss = new double[runs];
+        // the first start only warms the page cache
+        for (int run = -1; run < runs; run++) {
+            int port = freePort();
+            List<String> arguments = new ArrayList<>(command);
+            arguments.addAll(applicationArguments(port));
+            long start = System.nanoTime();
+            Process application = new ProcessBuilder(arguments)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            try {
+                String baseUrl = "http://localhost:" + port;
+                awaitFirstRequest(baseUrl, application);
+                if (run >= 0) {
+                    firstRequest[run] = (System.nanoTime() - start) / 1e6;
+                    ready[run] = metric(baseUrl, "application.ready.time") * 1e3;
+                    rss[run] = rss(application.pid()) / 1024.0 / 1024.0;
+                    System.out.printf("%s: run %d ready %.0f ms, first request %.0f ms%n", variant, run + 1, ready[run], firstRequest[run]);
+                }
+            } finally {
+                application.destroy();
+                application.waitFor();
+            }
+        }
+        return new Result(variant, runs, median(ready), median(firstRequest), median(rss));
+    }
+
+    private List<String> applicationArguments(int port) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=" + port,
+                "--logging.level.root=warn"));
+        String profiles = option("profiles", "");
+        if (!profiles.isEmpty()) {
+            arguments.add("--spring.profiles.active=" + profiles);
+        }
+        String database = option("database", "localhost:5432/bookstore");
+        arguments.add("--spring.r2dbc.url=r2dbc:postgresql://" + database);
+        arguments.add("--spring.datasource.url=jdbc:postgresql://" + database);
+        arguments.add("--spring.liquibase.url=jdbc:postgresql://" + database);
+        for (String property : List.of("spring.r2dbc", "spring.datasource", "spring.liquibase")) {
+            String user = property.equals("spring.liquibase") ? "user" : "username";
+            arguments.add("--" + property + "." + user + "=" + option("username", "postgres"));
+            arguments.add("--" + property + ".password=" + option("password", "postgres"));
+        }
+        return arguments;
+    }
+
+    private void awaitFirstRequest(String baseUrl, Process application) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/books?size=1")).GET().build();
+        long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (System.nanoTime() < deadline && application.isAlive()) {
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Application did not answer, exit code " + (application.isAlive() ? "none" : application.exitValue()));
+    }
+
+    private double metric(String baseUrl, String name) {
+        try {
+            HttpResponse<String> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/" + name)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode measurements = OBJECT_MAPPER.readTree(response.body()).path("measurements");
+            return measurements.isEmpty() ? Double.NaN : measurements.get(0).path("value").asDouble();
+        } catch (IOException e) {
+            return Double.NaN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Double.NaN;
+        }
+    }
+
+    private static void runStep(String step, List<String> command) throws IOException, InterruptedException {
+        System.out.printf("cds: %s%n", step);
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Failed " + step + " with exit code " + process.exitValue());
+        }
+    }
+
+    private static boolean requireArtifact(Path artifact) {
+        if (Files.exists(artifact)) {
+            return true;
+        }
+        System.out.printf("skipping %s, it has not been built%n", artifact);
+        return false;
+    }
+
+    /**
+     * Whether the jar carries the bean definitions generated by {@code process-aot}.
+     */
+    private static boolean springAot(Path jar) throws IOException {
+        try (JarFile file = new JarFile(jar.toFile())) {
+            return file.getEntry("BOOT-INF/classes/org/landsreyk/webfluxspring/Application__ApplicationContextInitializer.class") != null;
+        }
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * Resident set size of the process in bytes, or 0 where {@code /proc} is not available.
+     */
+    private static long rss(long pid) {
+        try {
+            return Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status")).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                    .findFirst()
+                    .orElse(0);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Result(String variant, int runs, double ready, double firstRequest, double rss) {
+
+        @Override
+        public String toString() {
+            return "%-7s %5d %10.0f %17.0f %8.0f".formatted(variant, runs, ready, firstRequest, rss);
+        }
+    }
+}
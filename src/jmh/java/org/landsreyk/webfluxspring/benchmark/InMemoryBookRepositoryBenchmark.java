@@ -0,0 +1,65 @@
+package org.landsreyk.webfluxspring.benchmark;
+
+import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.repository.InMemoryBookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class InMemoryBookRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    private InMemoryBookRepository bookRepository;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookRepository = new InMemoryBookRepository();
+        ids = new UUID[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            Book book = new Book("Title " + i, "Author " + i % BenchmarkContexts.AUTHORS, 1900 + i % 125);
+            bookRepository.save(book).block();
+            ids[i] = book.getId();
+        }
+    }
+
+    @Benchmark
+    public Book findById() {
+        return bookRepository.findById(ids[ThreadLocalRandom.current().nextInt(catalogSize)]).block();
+    }
+
+    @Benchmark
+    public List<Book> findAll() {
+        long page = ThreadLocalRandom.current().nextLong(catalogSize / PAGE_SIZE);
+        return bookRepository.findAll(page, PAGE_SIZE).collectList().block();
+    }
+
+    @Benchmark
+    public Long countBooks() {
+        return bookRepository.countBooks().block();
+    }
+}
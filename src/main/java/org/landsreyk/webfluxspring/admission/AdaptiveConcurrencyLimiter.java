@@ -0,0 +1,180 @@
+package org.landsreyk.webfluxspring.admission;
+
+import org.landsreyk.webfluxspring.config.BookProperties;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Concurrency limit of one route with a bounded FIFO wait queue.
+ * With a latency target the limit adapts by AIMD: every request slower than the target multiplies the limit by the
+ * backoff ratio, every faster request grows it by {@code 1 / limit}, i.e. about one per limit's worth of requests.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String route;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueSize;
+    private final Duration maxWait;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final Scheduler timer;
+    private final Runnable onRejected;
+    private final Runnable onTimeout;
+
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(BookProperties.Admission.Route route, Scheduler timer, Runnable onRejected, Runnable onTimeout) {
+        this.route = route.getName();
+        this.minLimit = route.getMinLimit();
+        this.maxLimit = route.getMaxLimit();
+        this.queueSize = route.getQueueSize();
+        this.maxWait = route.getMaxWait();
+        this.latencyTargetNanos = route.getLatencyTarget().toNanos();
+        this.backoffRatio = route.getBackoffRatio();
+        this.timer = timer;
+        this.onRejected = onRejected;
+        this.onTimeout = onTimeout;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, route.getInitialLimit()));
+    }
+
+    /**
+     * Admits the caller now, after waiting in the queue, or fails with {@link AdmissionRejectedException}
+     * when the queue is full or the wait exceeds the configured maximum.
+     *
+     * @return Mono<Permit> that must be released once the request has completed.
+     */
+    public Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            sink.onCancel(() -> abandon(waiter));
+            boolean granted = false;
+            boolean queued = false;
+            synchronized (this) {
+                if (waiters.isEmpty() && inFlight < (int) limit) {
+                    inFlight++;
+                    waiter.permit = new Permit();
+                    granted = true;
+                } else if (waiters.size() < queueSize) {
+                    waiters.addLast(waiter);
+                    queued = true;
+                }
+            }
+            if (granted) {
+                sink.success(waiter.permit);
+            } else if (queued) {
+                waiter.timeout = timer.schedule(() -> expire(waiter), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            } else {
+                onRejected.run();
+                sink.error(new AdmissionRejectedException(route));
+            }
+        });
+    }
+
+    public synchronized double limit() {
+        return limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queued() {
+        return waiters.size();
+    }
+
+    private void expire(Waiter waiter) {
+        boolean removed;
+        synchronized (this) {
+            removed = waiters.remove(waiter);
+        }
+        if (removed) {
+            onTimeout.run();
+            waiter.sink.error(new AdmissionRejectedException(route));
+        }
+    }
+
+    private void abandon(Waiter waiter) {
+        boolean removed;
+        synchronized (this) {
+            removed = waiters.remove(waiter);
+        }
+        if (removed) {
+            waiter.cancelTimeout();
+        } else if (waiter.permit != null) {
+            waiter.permit.release(false);
+        }
+    }
+
+    private void release(long latencyNanos, boolean sample) {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (sample && latencyTargetNanos > 0) {
+                if (latencyNanos > latencyTargetNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                } else if (inFlight * 2 >= limit) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+            while (!waiters.isEmpty() && inFlight < (int) limit) {
+                Waiter waiter = waiters.pollFirst();
+                inFlight++;
+                waiter.permit = new Permit();
+                admitted.add(waiter);
+            }
+        }
+        for (Waiter waiter : admitted) {
+            waiter.cancelTimeout();
+            waiter.sink.success(waiter.permit);
+        }
+    }
+
+    /**
+     * Slot taken by an admitted request. Releasing is idempotent.
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * @param sample whether the request's latency should adjust the limit; {@code false} for cancelled requests.
+         */
+        public void release(boolean sample) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(System.nanoTime() - startNanos, sample);
+            }
+        }
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private volatile Permit permit;
+        private volatile Disposable timeout;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        private void cancelTimeout() {
+            Disposable scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.landsreyk.webfluxspring.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Admits requests through the concurrency limiter of the first route whose pattern matches the path, so that
+ * excess load waits briefly in a bounded queue or is shed with 503 and {@code Retry-After} before it reaches the
+ * connection pool. Requests matching no route, or a disabled one, pass through.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "books.admission.enabled", matchIfMissing = true)
+public class AdmissionControlFilter implements WebFilter {
+
+    private final List<RouteLimiter> routes;
+    private final String retryAfter;
+
+    public AdmissionControlFilter(BookProperties bookProperties, MeterRegistry meterRegistry) {
+        BookProperties.Admission admission = bookProperties.getAdmission();
+        this.retryAfter = String.valueOf(Math.max(1, admission.getRetryAfter().toSeconds()));
+        this.routes = admission.getRoutes().stream()
+                .map(route -> new RouteLimiter(
+                        PathPatternParser.defaultInstance.parse(route.getPattern()),
+                        route.isEnabled() ? limiter(route, meterRegistry) : null))
+                .toList();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        AdaptiveConcurrencyLimiter limiter = limiterFor(exchange.getRequest().getPath().pathWithinApplication());
+        if (limiter == null) {
+            return chain.filter(exchange);
+        }
+        return limiter.acquire()
+                .onErrorResume(AdmissionRejectedException.class, e -> reject(exchange.getResponse()).then(Mono.empty()))
+                .flatMap(permit -> chain.filter(exchange)
+                        .doFinally(signal -> permit.release(signal != SignalType.CANCEL)));
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(PathContainer path) {
+        for (RouteLimiter route : routes) {
+            if (route.pattern().matches(path)) {
+                return route.limiter();
+            }
+        }
+        return null;
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+        return response.setComplete();
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(BookProperties.Admission.Route route, MeterRegistry meterRegistry) {
+        Counter rejected = rejectedCounter(meterRegistry, route.getName(), "queue_full");
+        Counter timedOut = rejectedCounter(meterRegistry, route.getName(), "timeout");
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(route, Schedulers.parallel(), rejected::increment, timedOut::increment);
+        Gauge.builder("books.admission.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Current concurrency limit")
+                .tag("route", route.getName())
+                .register(meterRegistry);
+        Gauge.builder("books.admission.in.flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Admitted requests in progress")
+                .tag("route", route.getName())
+                .register(meterRegistry);
+        Gauge.builder("books.admission.queued", limiter, AdaptiveConcurrencyLimiter::queued)
+                .description("Requests waiting for admission")
+                .tag("route", route.getName())
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String route, String reason) {
+        return Counter.builder("books.admission.rejected")
+                .description("Requests shed with 503")
+                .tag("route", route)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record RouteLimiter(PathPattern pattern, AdaptiveConcurrencyLimiter limiter) {
+    }
+}
@@ -0,0 +1,10 @@
+package org.landsreyk.webfluxspring.admission;
+
+/**
+ * Signals that a request was not admitted because its route is saturated.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+    public AdmissionRejectedException(String route) {
+        super("Route [%s] is saturated".formatted(route), null, false, false);
+    }
+}
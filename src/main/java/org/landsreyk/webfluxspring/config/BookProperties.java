@@ -0,0 +1,365 @@
+package org.landsreyk.webfluxspring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "books")
+public class BookProperties {
+
+    private Ids ids = new Ids();
+
+    private Bulk bulk = new Bulk();
+
+    private Cache cache = new Cache();
+
+    private Batching batching = new Batching();
+
+    private Stream stream = new Stream();
+
+    private Count count = new Count();
+
+    private Search search = new Search();
+
+    private Export export = new Export();
+
+    private Admission admission = new Admission();
+
+    private Resilience resilience = new Resilience();
+
+    private Database database = new Database();
+
+    private Replicas replicas = new Replicas();
+
+    @Data
+    public static class Ids {
+        /**
+         * Generator of new book ids: {@code time-ordered} UUIDv7 ids keep inserts at the right edge of the
+         * primary key index, {@code random} UUIDv4 ids spread them over the whole index.
+         */
+        private IdGenerator generator = IdGenerator.TIME_ORDERED;
+    }
+
+    @Data
+    public static class Bulk {
+        /**
+         * Number of books written by a single batched INSERT during bulk ingest.
+         */
+        private int batchSize = 500;
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * Whether single-book lookups are served through the in-process cache.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of books kept in the cache.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * How long a cached book is served before it is reloaded from the database.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Batching {
+        /**
+         * Whether concurrent lookups by id are collected into batches resolved with a single query.
+         */
+        private boolean enabled = true;
+
+        /**
+         * How long the first lookup of a batch waits for others to join it.
+         */
+        private Duration window = Duration.ofMillis(2);
+
+        /**
+         * Number of ids that closes a batch before its window has passed.
+         */
+        private int maxSize = 100;
+    }
+
+    @Data
+    public static class Stream {
+        /**
+         * Number of recent change events kept for subscribers resuming with {@code Last-Event-ID}.
+         */
+        private int historySize = 1_000;
+
+        /**
+         * Number of events buffered for a subscriber that reads slower than changes are published.
+         */
+        private int bufferSize = 256;
+
+        /**
+         * What happens to a subscriber whose buffer is full.
+         */
+        private OverflowPolicy overflow = OverflowPolicy.DROP_OLDEST;
+    }
+
+    @Data
+    public static class Count {
+        /**
+         * How long an approximate count is served before the estimate is read again.
+         */
+        private Duration cacheTtl = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Search {
+        /**
+         * Engine serving {@code GET /books/search?q=}: {@code database} queries the full-text and trigram indexes,
+         * {@code memory} keeps an in-process prefix index built at startup.
+         */
+        private SearchEngine engine = SearchEngine.DATABASE;
+    }
+
+    @Data
+    public static class Export {
+        /**
+         * Number of rows fetched from the database cursor per round trip while exporting the catalog.
+         */
+        private int fetchSize = 1_000;
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * Whether requests go through per-route admission control.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Value of the {@code Retry-After} header sent with 503 when a route is saturated.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        /**
+         * Routes in matching order; the first route whose pattern matches the request path applies.
+         */
+        private List<Route> routes = new ArrayList<>();
+
+        @Data
+        public static class Route {
+            /**
+             * Name used as the {@code route} tag of the admission metrics.
+             */
+            private String name;
+
+            /**
+             * Path pattern, e.g. {@code /books/**}.
+             */
+            private String pattern;
+
+            /**
+             * Whether the route is limited; disabled routes (e.g. long-lived streams) pass through.
+             */
+            private boolean enabled = true;
+
+            private int initialLimit = 32;
+
+            private int minLimit = 4;
+
+            private int maxLimit = 256;
+
+            /**
+             * Number of requests allowed to wait for a slot; further requests are rejected at once.
+             */
+            private int queueSize = 64;
+
+            /**
+             * How long a request may wait for a slot before it is rejected.
+             */
+            private Duration maxWait = Duration.ofMillis(200);
+
+            /**
+             * Latency above which the limit is decreased; zero keeps the limit fixed at its initial value.
+             */
+            private Duration latencyTarget = Duration.ofMillis(100);
+
+            /**
+             * Factor applied to the limit when a request exceeds the latency target.
+             */
+            private double backoffRatio = 0.9;
+        }
+    }
+
+    @Data
+    public static class Resilience {
+        /**
+         * Timeout of a repository operation that has no entry in {@link #timeouts}.
+         */
+        private Duration timeout = Duration.ofSeconds(2);
+
+        /**
+         * Timeouts by operation name; zero disables the timeout, e.g. for streams that run as long as the client reads.
+         */
+        private Map<String, Duration> timeouts = new HashMap<>();
+
+        /**
+         * Value of the {@code Retry-After} header sent with 503 when the database is unavailable.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        private Retry retry = new Retry();
+
+        private RetryBudget retryBudget = new RetryBudget();
+
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        @Data
+        public static class Retry {
+            /**
+             * Retries of a read after a transient error, not counting the first attempt.
+             */
+            private int maxAttempts = 3;
+
+            private Duration minBackoff = Duration.ofMillis(50);
+
+            private Duration maxBackoff = Duration.ofSeconds(1);
+
+            /**
+             * Fraction of each backoff that is randomized.
+             */
+            private double jitter = 0.5;
+        }
+
+        @Data
+        public static class RetryBudget {
+            /**
+             * Retries earned by every call, e.g. 0.1 allows retries of up to 10% of the traffic.
+             */
+            private double ratio = 0.1;
+
+            /**
+             * Retries allowed per second regardless of traffic.
+             */
+            private double minPerSecond = 5;
+
+            /**
+             * Maximum number of retries that can be saved up.
+             */
+            private double maxTokens = 100;
+        }
+
+        @Data
+        public static class CircuitBreaker {
+            private float failureRateThreshold = 50;
+
+            private float slowCallRateThreshold = 80;
+
+            private Duration slowCallDurationThreshold = Duration.ofSeconds(1);
+
+            private int slidingWindowSize = 50;
+
+            private int minimumNumberOfCalls = 20;
+
+            private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+            private int permittedNumberOfCallsInHalfOpenState = 5;
+        }
+    }
+
+    @Data
+    public static class Database {
+        /**
+         * Number of prepared statements the PostgreSQL driver caches per connection.
+         */
+        private int preparedStatementCacheQueries = 256;
+
+        /**
+         * Number of rows fetched per round trip by queries that stream their results.
+         */
+        private int fetchSize = 500;
+
+        /**
+         * Whether the connection pool opens its initial connections at startup.
+         */
+        private boolean warmup = true;
+
+        /**
+         * How long startup waits for the warm-up before continuing without it.
+         */
+        private Duration warmupTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Replicas {
+        /**
+         * Whether read-only queries are routed to the replicas; otherwise all queries go to {@code spring.r2dbc.url}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The read replicas, queried in turn while they pass their health check.
+         */
+        private List<Replica> instances = new ArrayList<>();
+
+        /**
+         * Interval between health checks of every replica.
+         */
+        private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+        /**
+         * How long a client's reads go to the primary after it wrote, so it sees its own changes despite replication lag.
+         */
+        private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+        /**
+         * Request header that identifies a client for read-your-writes; requests without it are never pinned.
+         */
+        private String clientHeader = "X-Client-Id";
+
+        /**
+         * Maximum number of clients whose last write is remembered.
+         */
+        private long maxClients = 100_000;
+
+        @Data
+        public static class Replica {
+            private String url;
+
+            /**
+             * Defaults to {@code spring.r2dbc.username}.
+             */
+            private String username;
+
+            /**
+             * Defaults to {@code spring.r2dbc.password}.
+             */
+            private String password;
+        }
+    }
+
+    public enum IdGenerator {
+        TIME_ORDERED,
+        RANDOM
+    }
+
+    public enum SearchEngine {
+        DATABASE,
+        MEMORY
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Discard the oldest buffered events and keep the subscriber connected.
+         */
+        DROP_OLDEST,
+        /**
+         * Terminate the subscriber's stream; it can reconnect with {@code Last-Event-ID}.
+         */
+        DISCONNECT
+    }
+}
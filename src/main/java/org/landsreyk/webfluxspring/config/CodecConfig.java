@@ -0,0 +1,68 @@
+package org.landsreyk.webfluxspring.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+@Configuration(proxyBeanMethods = false)
+public class CodecConfig {
+
+    private static final MimeType[] SMILE_MIME_TYPES = {
+            new MimeType("application", "x-jackson-smile"),
+            new MimeType("application", "*+x-jackson-smile")
+    };
+
+    /**
+     * Serves Smile, Jackson's binary JSON, to clients that accept {@code application/x-jackson-smile} or, for
+     * streams, {@code application/stream+x-jackson-smile}. The codecs share the {@code spring.jackson.*} settings
+     * of the JSON codecs, so both formats carry the same fields.
+     */
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        ObjectMapper objectMapper = jackson2ObjectMapperBuilder.factory(new SmileFactory()).build();
+        // without explicit mime types the codecs would fall back to the JSON ones
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new SmileEncoder(objectMapper));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(objectMapper, SMILE_MIME_TYPES));
+        };
+    }
+
+    /**
+     * For a non-streaming type Spring joins the elements of a {@link Flux} with JSON's brackets and commas, which
+     * Smile readers reject, so the elements are collected and encoded as one Smile array instead.
+     */
+    private static class SmileEncoder extends Jackson2SmileEncoder {
+
+        SmileEncoder(ObjectMapper objectMapper) {
+            super(objectMapper, SMILE_MIME_TYPES);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Flux<?> flux && !isStreaming(mimeType)) {
+                return super.encode(flux.collectList(), bufferFactory,
+                        ResolvableType.forClassWithGenerics(List.class, elementType), mimeType, hints);
+            }
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+
+        private boolean isStreaming(MimeType mimeType) {
+            return mimeType != null && getStreamingMediaTypes().stream().anyMatch(type -> type.isCompatibleWith(mimeType));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.landsreyk.webfluxspring.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Sizes the R2DBC connection pool from the number of available cores. The Hikari pool of the {@code webflux-jdbc}
+ * profile follows the R2DBC pool sizes, explicit or computed, so that both stacks compete with the same number of
+ * connections. The defaults are added with the lowest precedence, so pool sizes set anywhere else still win.
+ */
+public class ConnectionPoolEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String PROPERTY_SOURCE_NAME = "connectionPoolDefaults";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE_NAME, Map.of(
+                "spring.r2dbc.pool.initial-size", Math.max(2, cores),
+                "spring.r2dbc.pool.max-size", Math.max(4, cores * 2),
+                "spring.datasource.hikari.minimum-idle", "${spring.r2dbc.pool.initial-size}",
+                "spring.datasource.hikari.maximum-pool-size", "${spring.r2dbc.pool.max-size}")));
+    }
+}
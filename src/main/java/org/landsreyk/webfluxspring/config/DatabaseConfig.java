@@ -0,0 +1,59 @@
+package org.landsreyk.webfluxspring.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.landsreyk.webfluxspring.routing.ReplicaRoutingConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class DatabaseConfig {
+
+    /**
+     * Sizes the PostgreSQL driver's prepared statement cache; other drivers are left untouched.
+     */
+    @Bean
+    public ConnectionFactoryOptionsBuilderCustomizer preparedStatementCacheCustomizer(BookProperties bookProperties) {
+        return builder -> {
+            Object driver = builder.build().getValue(ConnectionFactoryOptions.DRIVER);
+            if ("postgresql".equals(driver)) {
+                builder.option(PostgresqlConnectionFactoryProvider.PREPARED_STATEMENT_CACHE_QUERIES,
+                        bookProperties.getDatabase().getPreparedStatementCacheQueries());
+            }
+        };
+    }
+
+    /**
+     * Opens the initial connections of the pool, or of every pool behind replica routing, before the web server
+     * starts, so the first requests after a deploy do not pay for connection setup. A database that is not reachable
+     * yet only delays startup by the timeout.
+     */
+    @Bean
+    public SmartInitializingSingleton connectionPoolWarmup(ObjectProvider<ConnectionFactory> connectionFactory, BookProperties bookProperties) {
+        return () -> {
+            BookProperties.Database database = bookProperties.getDatabase();
+            Mono<Integer> warmup = switch (connectionFactory.getIfAvailable()) {
+                case ConnectionPool pool -> pool.warmup();
+                case ReplicaRoutingConnectionFactory routing -> routing.warmup();
+                case null, default -> null;
+            };
+            if (!database.isWarmup() || warmup == null) {
+                return;
+            }
+            try {
+                Integer warmed = warmup.block(database.getWarmupTimeout());
+                log.info("Warmed up {} database connections", warmed);
+            } catch (RuntimeException e) {
+                log.warn("Could not warm up database connections: {}", e.getMessage());
+            }
+        };
+    }
+}
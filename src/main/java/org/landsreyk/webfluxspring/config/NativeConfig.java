@@ -0,0 +1,64 @@
+package org.landsreyk.webfluxspring.config;
+
+import org.landsreyk.webfluxspring.dto.AuthorStatsDTO;
+import org.landsreyk.webfluxspring.dto.AuthorStatsPageDTO;
+import org.landsreyk.webfluxspring.dto.BookBatchDTO;
+import org.landsreyk.webfluxspring.dto.BookCountDTO;
+import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.dto.BookEventDTO;
+import org.landsreyk.webfluxspring.dto.BookIdsDTO;
+import org.landsreyk.webfluxspring.dto.BookPageDTO;
+import org.landsreyk.webfluxspring.dto.BulkResultDTO;
+import org.landsreyk.webfluxspring.dto.ErrorResponse;
+import org.landsreyk.webfluxspring.dto.YearStatsDTO;
+import org.landsreyk.webfluxspring.model.Book;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * Registers what the native image needs beyond the hints Spring's AOT processing infers from the bean definitions
+ * and the GraalVM reachability metadata covers for the libraries. Has no effect on the JVM.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeConfig.BookRuntimeHints.class)
+public class NativeConfig {
+
+    static final String MAPPER_IMPLEMENTATION = "org.landsreyk.webfluxspring.mapper.BookMapperImpl";
+
+    /**
+     * Drivers that R2DBC discovers through {@link java.util.ServiceLoader} when it parses {@code spring.r2dbc.url}.
+     */
+    static final List<String> CONNECTION_FACTORY_PROVIDERS = List.of(
+            "io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider",
+            "io.r2dbc.pool.PoolingConnectionFactoryProvider",
+            "io.r2dbc.h2.H2ConnectionFactoryProvider");
+
+    static class BookRuntimeHints implements RuntimeHintsRegistrar {
+
+        private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Lombok generates the accessors Jackson and Spring Data bind through, including for types that are
+            // written by hand (export, change feed, error bodies) rather than returned from a handler
+            bindingRegistrar.registerReflectionHints(hints.reflection(),
+                    Book.class, BookDTO.class, BookPageDTO.class, BookBatchDTO.class, BookIdsDTO.class,
+                    BookCountDTO.class, BookEventDTO.class, BulkResultDTO.class, ErrorResponse.class,
+                    AuthorStatsDTO.class, AuthorStatsPageDTO.class, YearStatsDTO.class);
+            // MapStruct generates the mapper at compile time, Spring creates it as a scanned component
+            hints.reflection().registerType(TypeReference.of(MAPPER_IMPLEMENTATION),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.resources().registerPattern("db/changelog/*.yaml");
+            hints.resources().registerPattern("META-INF/services/io.r2dbc.spi.ConnectionFactoryProvider");
+            CONNECTION_FACTORY_PROVIDERS.forEach(provider -> hints.reflection().registerTypeIfPresent(classLoader,
+                    provider, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.landsreyk.webfluxspring.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import org.landsreyk.webfluxspring.routing.ReplicaRoutingConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured connection pool with one pool for the primary and one per read replica behind a
+ * {@link ReplicaRoutingConnectionFactory}. All pools share the {@code spring.r2dbc.pool} settings.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books.replicas.enabled")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaRoutingConnectionFactory connectionFactory(R2dbcProperties r2dbcProperties, BookProperties bookProperties,
+                                                             ObjectProvider<ConnectionFactoryOptionsBuilderCustomizer> customizers,
+                                                             MeterRegistry meterRegistry) {
+        List<ConnectionFactoryOptionsBuilderCustomizer> optionsCustomizers = customizers.orderedStream().toList();
+        ConnectionPool primary = pool("primary", r2dbcProperties.getUrl(), r2dbcProperties.getUsername(),
+                r2dbcProperties.getPassword(), r2dbcProperties.getPool(), optionsCustomizers, meterRegistry);
+        Map<String, ConnectionFactory> replicas = new LinkedHashMap<>();
+        List<BookProperties.Replicas.Replica> instances = bookProperties.getReplicas().getInstances();
+        for (int i = 0; i < instances.size(); i++) {
+            BookProperties.Replicas.Replica replica = instances.get(i);
+            String name = "replica-" + (i + 1);
+            replicas.put(name, pool(name, replica.getUrl(),
+                    replica.getUsername() != null ? replica.getUsername() : r2dbcProperties.getUsername(),
+                    replica.getPassword() != null ? replica.getPassword() : r2dbcProperties.getPassword(),
+                    r2dbcProperties.getPool(), optionsCustomizers, meterRegistry));
+        }
+        ReplicaRoutingConnectionFactory connectionFactory = new ReplicaRoutingConnectionFactory(primary, replicas);
+        Gauge.builder("books.db.replicas.healthy", connectionFactory, ReplicaRoutingConnectionFactory::healthyReplicas)
+                .description("Read replicas currently passing their health check")
+                .register(meterRegistry);
+        connectionFactory.startHealthChecks(bookProperties.getReplicas().getHealthCheckInterval());
+        return connectionFactory;
+    }
+
+    private static ConnectionPool pool(String name, String url, String username, String password, R2dbcProperties.Pool pool,
+                                       List<ConnectionFactoryOptionsBuilderCustomizer> customizers, MeterRegistry meterRegistry) {
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        ConnectionFactoryBuilder builder = ConnectionFactoryBuilder.withUrl(url);
+        map.from(username).to(builder::username);
+        map.from(password).to(builder::password);
+        customizers.forEach(customizer -> builder.configure(customizer::customize));
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration.builder(builder.build())
+                .name(name)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize());
+        map.from(pool.getMaxIdleTime()).to(configuration::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(configuration::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(configuration::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(configuration::maxCreateConnectionTime);
+        map.from(pool.getMaxValidationTime()).to(configuration::maxValidationTime);
+        map.from(pool.getValidationQuery()).whenHasText().to(configuration::validationQuery);
+        map.from(pool.getValidationDepth()).to(configuration::validationDepth);
+        ConnectionPool connectionPool = new ConnectionPool(configuration.build());
+        new ConnectionPoolMetrics(connectionPool, name, Tags.empty()).bindTo(meterRegistry);
+        return connectionPool;
+    }
+}
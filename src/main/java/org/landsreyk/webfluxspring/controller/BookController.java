@@ -3,15 +3,37 @@ package org.landsreyk.webfluxspring.controller;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.landsreyk.webfluxspring.dto.AuthorStatsPageDTO;
+import org.landsreyk.webfluxspring.dto.BookBatchDTO;
+import org.landsreyk.webfluxspring.dto.BookCountDTO;
 import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.dto.BookEventDTO;
+import org.landsreyk.webfluxspring.dto.BookIdsDTO;
+import org.landsreyk.webfluxspring.dto.BookPageDTO;
+import org.landsreyk.webfluxspring.dto.BulkResultDTO;
+import org.landsreyk.webfluxspring.dto.YearStatsDTO;
+import org.landsreyk.webfluxspring.exception.BookVersionMismatchException;
 import org.landsreyk.webfluxspring.service.BookService;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.UUID;
 
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 @RestController
@@ -19,27 +41,128 @@ import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 @RequiredArgsConstructor
 public class BookController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+    private static final MediaType APPLICATION_STREAM_SMILE = MediaType.parseMediaType(APPLICATION_STREAM_SMILE_VALUE);
+
     private final BookService bookService;
+    private final BookExportWriter bookExportWriter;
 
     @PostMapping
     public Mono<BookDTO> createBook(@Valid @RequestBody BookDTO bookDTO) {
         return bookService.create(bookDTO);
     }
 
-    @GetMapping
+    @PostMapping(value = "/bulk", consumes = {APPLICATION_NDJSON_VALUE, APPLICATION_JSON_VALUE, APPLICATION_STREAM_SMILE_VALUE},
+            produces = {APPLICATION_NDJSON_VALUE, APPLICATION_JSON_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<BulkResultDTO> createBooks(@RequestBody Flux<BookDTO> bookDTOs) {
+        return bookService.createAll(bookDTOs);
+    }
+
+    @GetMapping(params = "page")
     public Flux<BookDTO> getAllBooks(@RequestParam @Min(value = 0, message = "Page number can't be negative.") long page,
                                      @RequestParam @Min(value = 1, message = "Page size can't be less than 1.") @Max(value = 100, message = "Page size maximum value is 100.") long size) {
         return bookService.getAll(page, size);
     }
 
+    @PostMapping("/batch-get")
+    public Mono<BookBatchDTO> batchGetBooks(@Valid @RequestBody BookIdsDTO bookIdsDTO) {
+        return bookService.getByIds(bookIdsDTO.getIds());
+    }
+
+    @GetMapping(params = "ids")
+    public Mono<BookBatchDTO> getBooksByIds(@RequestParam @NotEmpty(message = "Ids cannot be empty") @Size(max = 100, message = "Ids maximum size is 100.") List<UUID> ids) {
+        return bookService.getByIds(ids);
+    }
+
+    @GetMapping(params = {"!page", "!ids"})
+    public Mono<BookPageDTO> getBooksPage(@RequestParam(required = false) String after,
+                                          @RequestParam(defaultValue = "20") @Min(value = 1, message = "Page size can't be less than 1.") @Max(value = 100, message = "Page size maximum value is 100.") int size) {
+        return bookService.getPage(after, size);
+    }
+
+    @GetMapping(value = "/search", params = {"author", "!q"}, produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<BookDTO> searchByAuthor(@RequestParam @NotBlank(message = "Author cannot be blank") String author,
+                                        @RequestParam(defaultValue = "0") int from,
+                                        @RequestParam(defaultValue = "9999") int to,
+                                        @RequestParam(defaultValue = "DESC") Sort.Direction order,
+                                        @RequestParam(defaultValue = "100") @Min(value = 1, message = "Limit can't be less than 1.") @Max(value = 1000, message = "Limit maximum value is 1000.") int limit) {
+        return bookService.findByAuthorAndYearRange(author, from, to, order, limit);
+    }
+
+    @GetMapping(value = "/search", params = "q")
+    public Mono<BookPageDTO> search(@RequestParam @NotBlank(message = "Query cannot be blank") @Size(max = 100, message = "Query maximum length is 100.") String q,
+                                    @RequestParam(required = false) String after,
+                                    @RequestParam(defaultValue = "10") @Min(value = 1, message = "Page size can't be less than 1.") @Max(value = 100, message = "Page size maximum value is 100.") int size) {
+        return bookService.search(q, after, size);
+    }
+
+    /**
+     * Exports the whole catalog as NDJSON, or as Smile when the client asks for it by name. Rows are written straight
+     * to the response as the client reads them.
+     */
+    @GetMapping(value = "/export", produces = {APPLICATION_NDJSON_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    public Mono<Void> exportNdjson(@RequestHeader HttpHeaders headers, ServerHttpResponse response) {
+        if (headers.getAccept().stream().anyMatch(type -> !type.isWildcardSubtype() && type.isCompatibleWith(APPLICATION_STREAM_SMILE))) {
+            response.getHeaders().setContentType(APPLICATION_STREAM_SMILE);
+            response.getHeaders().setContentDisposition(ContentDisposition.attachment().filename("books.sml").build());
+            return response.writeWith(bookExportWriter.smile(bookService.exportAll(), response.bufferFactory()));
+        }
+        response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+        response.getHeaders().setContentDisposition(ContentDisposition.attachment().filename("books.ndjson").build());
+        return response.writeWith(bookExportWriter.ndjson(bookService.exportAll(), response.bufferFactory()));
+    }
+
+    @GetMapping(value = "/export", produces = TEXT_CSV_VALUE)
+    public Mono<Void> exportCsv(ServerHttpResponse response) {
+        response.getHeaders().setContentType(MediaType.parseMediaType(TEXT_CSV_VALUE));
+        response.getHeaders().setContentDisposition(ContentDisposition.attachment().filename("books.csv").build());
+        return response.writeWith(bookExportWriter.csv(bookService.exportAll(), response.bufferFactory()));
+    }
+
+    @GetMapping("/count")
+    public Mono<BookCountDTO> countBooks(@RequestParam(defaultValue = "false") boolean approximate) {
+        return bookService.countBooks(approximate);
+    }
+
+    @GetMapping("/stats/authors")
+    public Mono<AuthorStatsPageDTO> getAuthorStats(@RequestParam(required = false) String after,
+                                                   @RequestParam(defaultValue = "100") @Min(value = 1, message = "Page size can't be less than 1.") @Max(value = 1000, message = "Page size maximum value is 1000.") int size) {
+        return bookService.getAuthorStats(after, size);
+    }
+
+    @GetMapping("/stats/years")
+    public Flux<YearStatsDTO> getYearStats() {
+        return bookService.getYearStats();
+    }
+
+    /**
+     * Returns the book with its version as a strong ETag; a matching If-None-Match is answered with 304 Not Modified.
+     */
     @GetMapping("{id}")
-    public Mono<BookDTO> getBookById(@PathVariable UUID id) {
-        return bookService.getById(id);
+    public Mono<ResponseEntity<BookDTO>> getBookById(@PathVariable UUID id) {
+        return bookService.getById(id)
+                .map(book -> ResponseEntity.ok()
+                        .eTag(String.valueOf(book.getVersion()))
+                        .body(book));
     }
 
     @PutMapping("{id}")
-    public Mono<Long> updateBook(@PathVariable UUID id, @Valid @RequestBody BookDTO bookDTO) {
-        return bookService.update(id, bookDTO);
+    public Mono<ResponseEntity<Long>> updateBook(@PathVariable UUID id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 @Valid @RequestBody BookDTO bookDTO) {
+        return bookService.updateAndGet(id, bookDTO, expectedVersion(id, ifMatch))
+                .map(updated -> withETag(ResponseEntity.ok(), updated).body(1L));
+    }
+
+    @PutMapping(value = "{id}", headers = "Prefer=return=representation")
+    public Mono<ResponseEntity<BookDTO>> updateAndGetBook(@PathVariable UUID id,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                          @Valid @RequestBody BookDTO bookDTO) {
+        return bookService.updateAndGet(id, bookDTO, expectedVersion(id, ifMatch))
+                .map(updated -> withETag(ResponseEntity.ok(), updated)
+                        .header("Preference-Applied", "return=representation")
+                        .body(updated));
     }
 
     @DeleteMapping("{id}")
@@ -47,8 +170,41 @@ public class BookController {
         return bookService.delete(id);
     }
 
-    @GetMapping(value = "/stream", produces = TEXT_EVENT_STREAM_VALUE)
+    @GetMapping(value = "/stream", produces = {TEXT_EVENT_STREAM_VALUE, APPLICATION_STREAM_SMILE_VALUE})
     public Flux<BookDTO> streamAllBooks() {
         return bookService.streamAllBooks();
     }
+
+    @GetMapping(value = "/stream", params = "mode=live", produces = TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BookEventDTO>> streamBookChanges(@RequestParam(defaultValue = "false") boolean snapshot,
+                                                                 @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return bookService.streamChanges(snapshot, lastEventId)
+                .map(event -> ServerSentEvent.builder(event)
+                        .id(event.getId())
+                        .event(event.getType().name())
+                        .build());
+    }
+
+    /**
+     * Reads the version expected by an If-Match header. Absent or {@code *} means an unconditional update;
+     * weak or malformed tags can never match strongly and fail the precondition.
+     */
+    private static Long expectedVersion(UUID id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.strip();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new BookVersionMismatchException(id);
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new BookVersionMismatchException(id);
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, BookDTO book) {
+        return book.getVersion() == null ? builder : builder.eTag(String.valueOf(book.getVersion()));
+    }
 }
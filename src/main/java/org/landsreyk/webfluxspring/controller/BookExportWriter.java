@@ -0,0 +1,105 @@
+package org.landsreyk.webfluxspring.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes books one at a time into buffers of the response's (pooled) buffer factory,
+ * so an export never holds more than the rows in flight.
+ */
+@Component
+public class BookExportWriter {
+
+    private static final byte[] NEW_LINE = {'\n'};
+    /**
+     * Smile's end-of-content marker, the separator Spring's Smile codecs use between streamed values.
+     */
+    private static final byte[] SMILE_SEPARATOR = {(byte) 0xFF};
+    private static final byte[] CSV_HEADER = "id,title,author,publishedYear,version\n".getBytes(StandardCharsets.UTF_8);
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final ObjectWriter objectWriter;
+    private final ObjectWriter smileWriter;
+
+    public BookExportWriter(ObjectMapper objectMapper) {
+        this.objectWriter = objectMapper.writerFor(BookDTO.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.smileWriter = objectMapper.copyWith(new SmileFactory()).writerFor(BookDTO.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public Flux<DataBuffer> ndjson(Flux<BookDTO> books, DataBufferFactory bufferFactory) {
+        return books.map(book -> write(bufferFactory, out -> {
+                    objectWriter.writeValue(out, book);
+                    out.write(NEW_LINE);
+                }))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    /**
+     * Writes every book as a complete Smile document, each with its own header, so a reader can start at any book.
+     */
+    public Flux<DataBuffer> smile(Flux<BookDTO> books, DataBufferFactory bufferFactory) {
+        return books.map(book -> write(bufferFactory, out -> {
+                    smileWriter.writeValue(out, book);
+                    out.write(SMILE_SEPARATOR);
+                }))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    public Flux<DataBuffer> csv(Flux<BookDTO> books, DataBufferFactory bufferFactory) {
+        return Flux.concat(
+                        Flux.defer(() -> Flux.just(bufferFactory.wrap(CSV_HEADER))),
+                        books.map(book -> write(bufferFactory, out -> out.write(csvLine(book).getBytes(StandardCharsets.UTF_8)))))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private static DataBuffer write(DataBufferFactory bufferFactory, Writer writer) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(INITIAL_CAPACITY);
+        try (OutputStream out = buffer.asOutputStream()) {
+            writer.write(out);
+            return buffer;
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csvLine(BookDTO book) {
+        return String.join(",",
+                String.valueOf(book.getId()),
+                csvField(book.getTitle()),
+                csvField(book.getAuthor()),
+                String.valueOf(book.getPublishedYear()),
+                book.getVersion() == null ? "" : String.valueOf(book.getVersion())) + "\n";
+    }
+
+    /**
+     * Quotes a field per RFC 4180 when it contains a separator, a quote or a line break.
+     */
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+}
@@ -1,14 +1,21 @@
 package org.landsreyk.webfluxspring.controller;
 
+import org.landsreyk.webfluxspring.config.BookProperties;
 import org.landsreyk.webfluxspring.dto.ErrorResponse;
 import org.landsreyk.webfluxspring.exception.BookNotFoundException;
+import org.landsreyk.webfluxspring.exception.BookStoreUnavailableException;
+import org.landsreyk.webfluxspring.exception.BookVersionMismatchException;
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.exception.InvalidCursorException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import org.springframework.web.server.ServerWebExchange;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -17,6 +24,12 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final String retryAfter;
+
+    public GlobalExceptionHandler(BookProperties bookProperties) {
+        this.retryAfter = String.valueOf(Math.max(1, bookProperties.getResilience().getRetryAfter().toSeconds()));
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(WebExchangeBindException.class)
     public Map<String, String> handleValidationExceptions(WebExchangeBindException ex) {
@@ -51,4 +64,49 @@ public class GlobalExceptionHandler {
                 .message(ex.getMessage())
                 .build();
     }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(DuplicateBookException.class)
+    public ErrorResponse handleDuplicateBookException(DuplicateBookException ex) {
+        return ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT)
+                .error("Duplicate Book.")
+                .message(ex.getMessage())
+                .build();
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidCursorException.class)
+    public ErrorResponse handleInvalidCursorException(InvalidCursorException ex) {
+        return ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.BAD_REQUEST)
+                .error("Invalid Cursor.")
+                .message(ex.getMessage())
+                .build();
+    }
+
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    @ExceptionHandler(BookVersionMismatchException.class)
+    public ErrorResponse handleBookVersionMismatchException(BookVersionMismatchException ex) {
+        return ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .error("Precondition Failed.")
+                .message(ex.getMessage())
+                .build();
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(BookStoreUnavailableException.class)
+    public ErrorResponse handleBookStoreUnavailableException(BookStoreUnavailableException ex, ServerWebExchange exchange) {
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+        return ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .error("Service Unavailable.")
+                .message(ex.getMessage())
+                .build();
+    }
 }
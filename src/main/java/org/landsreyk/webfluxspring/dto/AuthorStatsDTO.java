@@ -0,0 +1,26 @@
+package org.landsreyk.webfluxspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AuthorStatsDTO {
+    private String author;
+
+    private long books;
+
+    /**
+     * Published year of the author's oldest book.
+     */
+    private int firstYear;
+
+    /**
+     * Published year of the author's newest book.
+     */
+    private int lastYear;
+}
@@ -0,0 +1,21 @@
+package org.landsreyk.webfluxspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AuthorStatsPageDTO {
+    private List<AuthorStatsDTO> authors;
+
+    /**
+     * Opaque cursor to pass as {@code after} to fetch the next page, {@code null} on the last page.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,25 @@
+package org.landsreyk.webfluxspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookBatchDTO {
+    /**
+     * Books found, in the order their ids were requested.
+     */
+    private List<BookDTO> books;
+
+    /**
+     * Requested ids that match no book, in request order.
+     */
+    private List<UUID> missing;
+}
@@ -0,0 +1,19 @@
+package org.landsreyk.webfluxspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookCountDTO {
+    private long count;
+
+    /**
+     * Whether the count is an estimate from table statistics rather than an exact figure.
+     */
+    private boolean approximate;
+}
@@ -26,4 +26,13 @@ public class BookDTO {
     @Min(value = 1900, message = "Published year must be at least 1900")
     @Max(value = 2024, message = "Published year cannot be in the future")
     private int publishedYear;
+
+    /**
+     * Version of the book, also sent as its ETag. {@code null} when not known.
+     */
+    private Long version;
+
+    public BookDTO(UUID id, String title, String author, int publishedYear) {
+        this(id, title, author, publishedYear, null);
+    }
 }
@@ -0,0 +1,34 @@
+package org.landsreyk.webfluxspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookEventDTO {
+    /**
+     * Id of the event, {@code <epoch>-<sequence>}, sent as the SSE event id and accepted back as {@code Last-Event-ID}.
+     */
+    private String id;
+
+    /**
+     * Position of the event in the change feed since the application started.
+     * Snapshot and reset events carry the position the live feed continues from.
+     */
+    private long sequence;
+
+    private BookEventType type;
+
+    private UUID bookId;
+
+    /**
+     * State of the book after the change, {@code null} for deletions.
+     */
+    private BookDTO book;
+}
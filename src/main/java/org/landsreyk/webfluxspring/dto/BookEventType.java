@@ -0,0 +1,12 @@
+package org.landsreyk.webfluxspring.dto;
+
+public enum BookEventType {
+    /**
+     * The subscriber's {@code Last-Event-ID} cannot be resumed; drop local state, a snapshot follows.
+     */
+    RESET,
+    SNAPSHOT,
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,22 @@
+package org.landsreyk.webfluxspring.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookIdsDTO {
+    @NotEmpty(message = "Ids cannot be empty")
+    @Size(max = 100, message = "Ids maximum size is 100.")
+    private List<@NotNull(message = "Id cannot be null") UUID> ids;
+}
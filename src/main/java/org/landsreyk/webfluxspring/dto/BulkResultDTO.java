@@ -0,0 +1,20 @@
+package org.landsreyk.webfluxspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkResultDTO {
+    private long batch;
+
+    private long accepted;
+
+    private long duplicates;
+
+    private long invalid;
+}
@@ -0,0 +1,7 @@
+package org.landsreyk.webfluxspring.exception;
+
+public class BookStoreUnavailableException extends RuntimeException {
+    public BookStoreUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
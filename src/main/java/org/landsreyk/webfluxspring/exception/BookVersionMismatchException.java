@@ -0,0 +1,9 @@
+package org.landsreyk.webfluxspring.exception;
+
+import java.util.UUID;
+
+public class BookVersionMismatchException extends RuntimeException {
+    public BookVersionMismatchException(UUID bookId) {
+        super("Book with id = [%s] does not match the expected version".formatted(bookId));
+    }
+}
@@ -9,6 +9,6 @@ public class DuplicateBookException extends RuntimeException {
     }
 
     public DuplicateBookException(Book book) {
-        this("A book [%s] already exists.".formatted(book));
+        this("A book [%s] by [%s] already exists.".formatted(book.getTitle(), book.getAuthor()));
     }
 }
@@ -0,0 +1,7 @@
+package org.landsreyk.webfluxspring.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String cursor) {
+        super("Cursor [%s] is not valid".formatted(cursor));
+    }
+}
@@ -0,0 +1,14 @@
+package org.landsreyk.webfluxspring.id;
+
+import java.util.UUID;
+
+/**
+ * Assigns ids to new books. Selected with {@code books.ids.generator}.
+ */
+public interface BookIdGenerator {
+
+    /**
+     * @return a new id, never returned before by this generator.
+     */
+    UUID next();
+}
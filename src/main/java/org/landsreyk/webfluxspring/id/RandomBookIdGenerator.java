@@ -0,0 +1,20 @@
+package org.landsreyk.webfluxspring.id;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Random UUIDv4 ids, the scheme used before time-ordered ids. Consecutive inserts land on random pages
+ * of the primary key index.
+ */
+@Component
+@ConditionalOnProperty(name = "books.ids.generator", havingValue = "random")
+public class RandomBookIdGenerator implements BookIdGenerator {
+
+    @Override
+    public UUID next() {
+        return UUID.randomUUID();
+    }
+}
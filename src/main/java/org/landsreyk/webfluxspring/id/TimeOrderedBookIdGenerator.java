@@ -0,0 +1,52 @@
+package org.landsreyk.webfluxspring.id;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * UUIDv7 ids (RFC 9562): a 48-bit millisecond timestamp, a 12-bit counter and 62 random bits. Ids from one
+ * generator are strictly increasing, also within a millisecond and when the clock steps back, so new books
+ * are appended to the right edge of the primary key index and the id order is the creation order.
+ * <p>
+ * The random bits come from {@link ThreadLocalRandom}, not a {@code SecureRandom}: ids are not meant to be
+ * unguessable, and the timestamp gives the creation time away anyway.
+ */
+@Component
+@ConditionalOnProperty(name = "books.ids.generator", havingValue = "time-ordered", matchIfMissing = true)
+public class TimeOrderedBookIdGenerator implements BookIdGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private final LongSupplier clock;
+    /**
+     * Timestamp and counter of the last id, the 60 bits that make ids increase.
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeOrderedBookIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    TimeOrderedBookIdGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID next() {
+        long now = clock.getAsLong() << COUNTER_BITS;
+        // a full counter carries into the timestamp, borrowing from the next millisecond
+        long stamp = last.updateAndGet(previous -> Math.max(now, previous + 1));
+        long mostSignificantBits = ((stamp >>> COUNTER_BITS) << 16) | VERSION | (stamp & COUNTER_MASK);
+        long leastSignificantBits = VARIANT | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
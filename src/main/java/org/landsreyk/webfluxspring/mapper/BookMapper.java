@@ -1,14 +1,35 @@
 package org.landsreyk.webfluxspring.mapper;
 
+import org.landsreyk.webfluxspring.dto.AuthorStatsDTO;
 import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.dto.YearStatsDTO;
+import org.landsreyk.webfluxspring.id.BookIdGenerator;
+import org.landsreyk.webfluxspring.model.AuthorStats;
 import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.model.YearStats;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import static org.mapstruct.NullValueCheckStrategy.ALWAYS;
 
 @Mapper(componentModel = "spring", nullValueCheckStrategy = ALWAYS)
-public interface BookMapper {
-    Book mapToEntity(BookDTO bookDTO);
+public abstract class BookMapper {
 
-    BookDTO mapToDTO(Book book);
+    @Autowired
+    protected BookIdGenerator bookIdGenerator;
+
+    /**
+     * New books always get their id from the configured {@link BookIdGenerator} and start at version 0; an id or
+     * version sent by the client is ignored.
+     */
+    @Mapping(target = "id", expression = "java(bookIdGenerator.next())")
+    @Mapping(target = "version", constant = "0L")
+    public abstract Book mapToEntity(BookDTO bookDTO);
+
+    public abstract BookDTO mapToDTO(Book book);
+
+    public abstract AuthorStatsDTO mapToDTO(AuthorStats authorStats);
+
+    public abstract YearStatsDTO mapToDTO(YearStats yearStats);
 }
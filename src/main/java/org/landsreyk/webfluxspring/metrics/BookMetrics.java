@@ -0,0 +1,118 @@
+package org.landsreyk.webfluxspring.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Application metrics that are not covered by the actuator: database query timers, lookup batch sizes, stream subscribers, retries and timeouts.
+ */
+@Component
+public class BookMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> streamSubscribers = new ConcurrentHashMap<>();
+
+    public BookMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Times a query from subscription until it completes, fails or is cancelled.
+     *
+     * @param query name of the query, used as the {@code query} tag.
+     * @param flux  the query.
+     * @return Flux<T> emitting the same signals as the query.
+     */
+    public <T> Flux<T> timeQuery(String query, Flux<T> flux) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return flux.doFinally(signal -> stop(sample, query, signal));
+        });
+    }
+
+    public <T> Mono<T> timeQuery(String query, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doFinally(signal -> stop(sample, query, signal));
+        });
+    }
+
+    /**
+     * Counts the subscribers of a long-lived stream while they are connected.
+     *
+     * @param stream name of the stream, used as the {@code stream} tag.
+     * @param flux   the stream.
+     * @return Flux<T> emitting the same signals as the stream.
+     */
+    public <T> Flux<T> trackSubscribers(String stream, Flux<T> flux) {
+        AtomicInteger subscribers = streamSubscribers.computeIfAbsent(stream, name -> {
+            AtomicInteger gauge = new AtomicInteger();
+            Gauge.builder("books.stream.subscribers", gauge, AtomicInteger::get)
+                    .description("Number of connected stream subscribers")
+                    .tag("stream", name)
+                    .register(meterRegistry);
+            return gauge;
+        });
+        return flux.doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    public void retry(String operation) {
+        meterRegistry.counter("books.retries", "operation", operation).increment();
+    }
+
+    public void retryBudgetExhausted(String operation) {
+        meterRegistry.counter("books.retries.rejected", "operation", operation).increment();
+    }
+
+    public void timeout(String operation) {
+        meterRegistry.counter("books.timeouts", "operation", operation).increment();
+    }
+
+    /**
+     * Records how many distinct ids a batched lookup resolved with one query.
+     */
+    public void batch(int size) {
+        DistributionSummary.builder("books.batch.size")
+                .description("Number of ids resolved by one batched lookup")
+                .register(meterRegistry)
+                .record(size);
+    }
+
+    /**
+     * Records a query in its per-query timer and in the latency histogram of all queries. Only the aggregate
+     * publishes histogram buckets, per query and outcome they would multiply the size of every scrape.
+     */
+    private void stop(Timer.Sample sample, String query, SignalType signal) {
+        String outcome = switch (signal) {
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancelled";
+            default -> "success";
+        };
+        long nanos = sample.stop(Timer.builder("books.db.query")
+                .description("Time spent executing a database query")
+                .tag("query", query)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        Timer.builder("books.db.queries")
+                .description("Latency distribution of all database queries")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,20 @@
+package org.landsreyk.webfluxspring.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of books of an author and the years they span.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthorStats {
+
+    private String author;
+
+    private long books;
+
+    private int firstYear;
+
+    private int lastYear;
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.landsreyk.webfluxspring.id.BookIdGenerator;
+import org.landsreyk.webfluxspring.id.TimeOrderedBookIdGenerator;
 
 import java.util.UUID;
 
@@ -13,6 +15,8 @@ import java.util.UUID;
 @AllArgsConstructor
 public class Book {
 
+    private static final BookIdGenerator ID_GENERATOR = new TimeOrderedBookIdGenerator();
+
     private UUID id;
 
     private String title;
@@ -21,8 +25,24 @@ public class Book {
 
     private int publishedYear;
 
+    /**
+     * Incremented by every update, used for optimistic concurrency control.
+     */
+    private long version;
+
+    public Book(UUID id, String title, String author, int publishedYear) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.publishedYear = publishedYear;
+    }
+
+    /**
+     * Creates a book with a new time-ordered id. Books created through the API get theirs from the configured
+     * {@link BookIdGenerator} instead, see {@code BookMapper}.
+     */
     public Book(String title, String author, int publishedYear) {
-        this.id = UUID.randomUUID();
+        this.id = ID_GENERATOR.next();
         this.title = title;
         this.author = author;
         this.publishedYear = publishedYear;
@@ -0,0 +1,16 @@
+package org.landsreyk.webfluxspring.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of books published in a year.
+ */
+@Getter
+@AllArgsConstructor
+public class YearStats {
+
+    private int year;
+
+    private long books;
+}
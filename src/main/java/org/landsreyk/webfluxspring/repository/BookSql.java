@@ -0,0 +1,154 @@
+package org.landsreyk.webfluxspring.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Statements shared by {@link CustomBookRepositoryImpl} and {@link JdbcBookRepository}, so both stacks run the same SQL.
+ * Parameters are named ({@code :name}), which both {@code DatabaseClient} and {@code NamedParameterJdbcTemplate} bind.
+ */
+final class BookSql {
+
+    static final String COLUMNS = "id, title, author, published_year, version";
+
+    static final String INSERT = """
+            INSERT INTO book (id, title, author, published_year)
+            VALUES (:id, :title, :author, :publishedYear)
+            ON CONFLICT DO NOTHING
+            """;
+
+    static final String UPDATE = """
+            UPDATE book
+            SET title = :title,
+                author = :author,
+                published_year = :publishedYear,
+                version = version + 1
+            WHERE id = :id
+            """;
+
+    static final String UPDATE_IF_VERSION = UPDATE + "AND version = :expectedVersion\n";
+
+    static final String DELETE_BY_ID = "DELETE FROM book WHERE id = :id";
+
+    static final String FIND_ALL = "SELECT " + COLUMNS + " FROM book";
+
+    static final String FIND_BY_ID = FIND_ALL + " WHERE id = :id";
+
+    /**
+     * Takes the sort direction as its only format argument.
+     */
+    static final String FIND_BY_AUTHOR_AND_YEAR_RANGE = FIND_ALL + """
+
+            WHERE author = :author
+            AND published_year BETWEEN :startYear AND :endYear
+            ORDER BY published_year %s
+            LIMIT :limit
+            """;
+
+    static final String FIND_PAGE = FIND_ALL + """
+
+            ORDER BY id
+            LIMIT :limit OFFSET :offset
+            """;
+
+    static final String FIND_FIRST_PAGE = FIND_ALL + """
+
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    static final String FIND_PAGE_AFTER = FIND_ALL + """
+
+            WHERE id > :after
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    static final String COUNT = "SELECT COUNT(*) AS count FROM book";
+    static final String COUNT_ROLLUP = "SELECT count FROM book_count";
+    static final String COUNT_ESTIMATE = """
+            SELECT reltuples::bigint AS count FROM pg_class
+            WHERE oid = 'book'::regclass
+            """;
+
+    /**
+     * Ranks full-text prefix matches together with trigram similarity, PostgreSQL only.
+     */
+    static final String SEARCH_FULL_TEXT = """
+            SELECT %s
+            FROM book, to_tsquery('simple', :prefixQuery) AS query
+            WHERE search_vector @@ query
+            ORDER BY ts_rank(search_vector, query)
+                     + greatest(similarity(lower(title), :text), similarity(lower(author), :text)) DESC,
+                     id
+            LIMIT :limit OFFSET :offset
+            """.formatted(COLUMNS);
+
+    /**
+     * Counts per author and published year, read from the rollup on PostgreSQL and grouped on the fly elsewhere.
+     */
+    static final String AUTHOR_YEAR_COUNTS = "book_author_year_count";
+    static final String AUTHOR_YEAR_COUNTS_FALLBACK = """
+            (SELECT author, published_year, COUNT(*) AS count FROM book
+            WHERE author IS NOT NULL AND published_year IS NOT NULL
+            GROUP BY author, published_year) AS book_author_year_count""";
+
+    static final String YEAR_STATS_ROLLUP = "SELECT published_year, count FROM book_year_count ORDER BY published_year";
+    static final String YEAR_STATS = """
+            SELECT published_year, COUNT(*) AS count FROM book
+            WHERE published_year IS NOT NULL
+            GROUP BY published_year
+            ORDER BY published_year
+            """;
+
+    private BookSql() {
+    }
+
+    /**
+     * The {@code :prefixQuery} of {@link #SEARCH_FULL_TEXT}: every term as a prefix, all of them required.
+     */
+    static String prefixQuery(List<String> terms) {
+        return terms.stream().map(term -> term + ":*").collect(Collectors.joining(" & "));
+    }
+
+    /**
+     * Case-insensitive prefix search over title and author for databases without full-text search. Term {@code i}
+     * binds {@code :prefix<i>} to {@code term%} and {@code :word<i>} to {@code % term%}, see {@link #likePrefix} and
+     * {@link #likeWord}.
+     */
+    static String searchLike(int terms) {
+        StringBuilder where = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            where.append(i == 0 ? "WHERE " : "AND ")
+                    .append("(LOWER(title) LIKE :prefix%1$d OR LOWER(title) LIKE :word%1$d OR LOWER(author) LIKE :prefix%1$d OR LOWER(author) LIKE :word%1$d)\n".formatted(i));
+        }
+        return """
+                SELECT %s FROM book
+                %s
+                ORDER BY CASE WHEN LOWER(title) LIKE :prefix0 OR LOWER(title) LIKE :word0 THEN 0 ELSE 1 END, title, id
+                LIMIT :limit OFFSET :offset
+                """.formatted(COLUMNS, where);
+    }
+
+    static String likePrefix(String term) {
+        return term + "%";
+    }
+
+    static String likeWord(String term) {
+        return "% " + term + "%";
+    }
+
+    /**
+     * Author stats from the rollup on PostgreSQL, or grouped on the fly elsewhere, optionally after {@code :after}.
+     */
+    static String authorStats(boolean postgres, boolean after) {
+        return """
+                SELECT author, CAST(SUM(count) AS BIGINT) AS books, MIN(published_year) AS first_year, MAX(published_year) AS last_year
+                FROM %s
+                %s
+                GROUP BY author
+                ORDER BY author
+                LIMIT :limit
+                """.formatted(postgres ? AUTHOR_YEAR_COUNTS : AUTHOR_YEAR_COUNTS_FALLBACK, after ? "WHERE author > :after" : "");
+    }
+}
@@ -1,11 +1,158 @@
 package org.landsreyk.webfluxspring.repository;
 
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.model.AuthorStats;
 import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.model.YearStats;
+import org.springframework.data.domain.Sort;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 public interface CustomBookRepository {
+    /**
+     * Inserts a book in a single round trip, relying on the unique (author, title) index to reject duplicates.
+     *
+     * @param book The book to insert.
+     * @return Mono<Book> of the inserted book; emits {@link DuplicateBookException} if it already exists.
+     */
+    Mono<Book> insert(Book book);
+
+    /**
+     * Inserts the books with one batched statement, silently skipping duplicates.
+     *
+     * @param books The books to insert.
+     * @return Flux<Book> of the books actually inserted, in input order.
+     */
+    Flux<Book> insertAll(List<Book> books);
+
+    /**
+     * Updates a book in a single statement and increments its version.
+     *
+     * @param book The new state of the book.
+     * @return Mono<Long> with the number of updated rows, 0 if the book does not exist.
+     */
     Mono<Long> update(Book book);
 
-    Flux<Book> findByAuthorAndYearRange(String author, int startYear, int endYear);
+    /**
+     * Updates a book in a single statement only if its version still matches (compare-and-set).
+     *
+     * @param book            The new state of the book.
+     * @param expectedVersion The version the caller last read.
+     * @return Mono<Long> with the number of updated rows, 0 if the book does not exist or its version moved on.
+     */
+    Mono<Long> updateIfVersion(Book book, long expectedVersion);
+
+    /**
+     * Deletes a book in a single statement.
+     *
+     * @param id The id of the book.
+     * @return Mono<Long> with the number of deleted rows, 0 if the book does not exist.
+     */
+    Mono<Long> removeById(UUID id);
+
+    /**
+     * Returns the author's books published within the year range, newest first.
+     */
+    default Flux<Book> findByAuthorAndYearRange(String author, int startYear, int endYear) {
+        return findByAuthorAndYearRange(author, startYear, endYear, Sort.Direction.DESC, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the author's books published within the year range, served by the (author, published_year) index.
+     *
+     * @param author    exact author name.
+     * @param startYear first published year, inclusive.
+     * @param endYear   last published year, inclusive.
+     * @param order     order of the published year.
+     * @param limit     maximum number of rows to return.
+     * @return Flux<Book> of at most {@code limit} books.
+     */
+    Flux<Book> findByAuthorAndYearRange(String author, int startYear, int endYear, Sort.Direction order, int limit);
+
+    /**
+     * Returns a page of books ordered by id using LIMIT/OFFSET. Cost grows with the offset, prefer
+     * {@link #findPageAfter(UUID, int)} for walking large catalogs.
+     *
+     * @param offset number of rows to skip.
+     * @param limit  maximum number of rows to return.
+     * @return Flux<Book> of at most {@code limit} books ordered by id.
+     */
+    Flux<Book> findPage(long offset, long limit);
+
+    /**
+     * Returns books ordered by id that come strictly after the given id (keyset pagination). Time-ordered ids
+     * make this the order in which the books were created.
+     *
+     * @param after id of the last book of the previous page, or {@code null} for the first page.
+     * @param limit maximum number of rows to return.
+     * @return Flux<Book> of at most {@code limit} books ordered by id.
+     */
+    Flux<Book> findPageAfter(UUID after, int limit);
+
+    /**
+     * Returns the exact number of books. On PostgreSQL this reads the trigger-maintained {@code book_count} row
+     * instead of scanning the table.
+     *
+     * @return Mono<Long> with the number of books.
+     */
+    Mono<Long> countExact();
+
+    /**
+     * Returns the planner's estimate of the number of books, refreshed by (auto)vacuum and analyze.
+     * Falls back to {@link #countExact()} when no estimate is available.
+     *
+     * @return Mono<Long> with the estimated number of books.
+     */
+    Mono<Long> countEstimate();
+
+    /**
+     * Returns books whose title or author has a word starting with every term, most relevant first.
+     * On PostgreSQL the match uses the {@code search_vector} full-text index and trigram similarity adds to the rank.
+     *
+     * @param terms  lower-case words of letters and digits.
+     * @param offset number of ranked rows to skip.
+     * @param limit  maximum number of rows to return.
+     * @return Flux<Book> ordered by descending relevance.
+     */
+    Flux<Book> search(List<String> terms, long offset, int limit);
+
+    /**
+     * Streams every book from a single query, fetching rows from the server-side cursor in chunks
+     * as the subscriber requests them.
+     *
+     * @param fetchSize number of rows fetched per round trip.
+     * @return Flux<Book> of all books in table order.
+     */
+    Flux<Book> streamAll(int fetchSize);
+
+    /**
+     * Returns the books with the given ids in a single query.
+     *
+     * @param ids ids of the books.
+     * @return Flux<Book> of the books that exist, in no particular order.
+     */
+    Flux<Book> findAllByIds(Collection<UUID> ids);
+
+    /**
+     * Returns the number of books and the range of published years per author, ordered by author and paged by
+     * keyset. On PostgreSQL this reads the trigger-maintained {@code book_author_year_count} rollup, which holds one
+     * row per author and year, instead of grouping the book table. Books without an author are not counted.
+     *
+     * @param after author of the last entry of the previous page, or {@code null} for the first page.
+     * @param limit maximum number of authors to return.
+     * @return Flux<AuthorStats> of at most {@code limit} authors ordered by name.
+     */
+    Flux<AuthorStats> findAuthorStats(String after, int limit);
+
+    /**
+     * Returns the number of books per published year. On PostgreSQL this reads the trigger-maintained
+     * {@code book_year_count} rollup instead of grouping the book table.
+     *
+     * @return Flux<YearStats> of every year that has books, in ascending order.
+     */
+    Flux<YearStats> findYearStats();
 }
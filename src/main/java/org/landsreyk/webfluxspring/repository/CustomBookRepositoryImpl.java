@@ -1,51 +1,260 @@
 package org.landsreyk.webfluxspring.repository;
 
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
 import lombok.RequiredArgsConstructor;
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.landsreyk.webfluxspring.metrics.BookMetrics;
+import org.landsreyk.webfluxspring.model.AuthorStats;
 import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.model.YearStats;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.StatementFilterFunction;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @RequiredArgsConstructor
 public class CustomBookRepositoryImpl implements CustomBookRepository {
 
     private final DatabaseClient databaseClient;
+    private final BookMetrics bookMetrics;
+    private final BookProperties bookProperties;
+
+    @Override
+    public Mono<Book> insert(Book book) {
+        return bookMetrics.timeQuery("insert", databaseClient.sql(BookSql.INSERT)
+                .bind("id", book.getId())
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("publishedYear", book.getPublishedYear())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rowsUpdated -> rowsUpdated == 0
+                        ? Mono.error(new DuplicateBookException(book))
+                        : Mono.just(book)));
+    }
+
+    @Override
+    public Flux<Book> insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return Flux.empty();
+        }
+        return bookMetrics.timeQuery("insertAll", databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement("""
+                            INSERT INTO book (id, title, author, published_year)
+                            VALUES ($1, $2, $3, $4)
+                            ON CONFLICT DO NOTHING
+                            """);
+                    for (int i = 0; i < books.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        Book book = books.get(i);
+                        statement.bind(0, book.getId())
+                                .bind(1, book.getTitle())
+                                .bind(2, book.getAuthor())
+                                .bind(3, book.getPublishedYear());
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(Result::getRowsUpdated);
+                })
+                .index()
+                .filter(rowsUpdated -> rowsUpdated.getT2() > 0)
+                .map(rowsUpdated -> books.get(rowsUpdated.getT1().intValue())));
+    }
 
     @Override
     public Mono<Long> update(Book book) {
-        return databaseClient.sql("""
-                        UPDATE book
-                        SET title = :title,
-                            author = :author,
-                            published_year = :publishedYear
-                        WHERE id = :id
-                        """)
+        return bookMetrics.timeQuery("update", databaseClient.sql(BookSql.UPDATE)
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("publishedYear", book.getPublishedYear())
+                .bind("id", book.getId())
+                .fetch()
+                .rowsUpdated()
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DuplicateBookException(book)));
+    }
+
+    @Override
+    public Mono<Long> updateIfVersion(Book book, long expectedVersion) {
+        return bookMetrics.timeQuery("updateIfVersion", databaseClient.sql(BookSql.UPDATE_IF_VERSION)
                 .bind("title", book.getTitle())
                 .bind("author", book.getAuthor())
                 .bind("publishedYear", book.getPublishedYear())
                 .bind("id", book.getId())
+                .bind("expectedVersion", expectedVersion)
+                .fetch()
+                .rowsUpdated()
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DuplicateBookException(book)));
+    }
+
+    @Override
+    public Mono<Long> removeById(UUID id) {
+        return bookMetrics.timeQuery("removeById", databaseClient.sql(BookSql.DELETE_BY_ID)
+                .bind("id", id)
                 .fetch()
-                .rowsUpdated();
+                .rowsUpdated());
     }
 
     @Override
-    public Flux<Book> findByAuthorAndYearRange(String author, int startYear, int endYear) {
-        return databaseClient.sql("""
-                        SELECT * FROM book
-                        WHERE author = :author
-                        AND published_year BETWEEN :startYear AND :endYear
-                        """)
+    public Flux<Book> findByAuthorAndYearRange(String author, int startYear, int endYear, Sort.Direction order, int limit) {
+        return bookMetrics.timeQuery("findByAuthorAndYearRange", databaseClient.sql(BookSql.FIND_BY_AUTHOR_AND_YEAR_RANGE.formatted(order.name()))
                 .bind("author", author)
                 .bind("startYear", startYear)
                 .bind("endYear", endYear)
-                .map(((row, metadata) -> new Book(
-                        row.get("id", UUID.class),
-                        row.get("title", String.class),
-                        row.get("author", String.class),
-                        row.get("published_year", Integer.class)
-                )))
-                .all();
-    }
-}
\ No newline at end of file
+                .bind("limit", limit)
+                .filter(fetchSize(bookProperties.getDatabase().getFetchSize()))
+                .map(CustomBookRepositoryImpl::mapRow)
+                .all());
+    }
+
+    @Override
+    public Flux<Book> findPage(long offset, long limit) {
+        return bookMetrics.timeQuery("findPage", databaseClient.sql(BookSql.FIND_PAGE)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .filter(fetchSize(bookProperties.getDatabase().getFetchSize()))
+                .map(CustomBookRepositoryImpl::mapRow)
+                .all());
+    }
+
+    @Override
+    public Flux<Book> findPageAfter(UUID after, int limit) {
+        if (after == null) {
+            return bookMetrics.timeQuery("findPageAfter", databaseClient.sql(BookSql.FIND_FIRST_PAGE)
+                    .bind("limit", limit)
+                    .filter(fetchSize(bookProperties.getDatabase().getFetchSize()))
+                    .map(CustomBookRepositoryImpl::mapRow)
+                    .all());
+        }
+        return bookMetrics.timeQuery("findPageAfter", databaseClient.sql(BookSql.FIND_PAGE_AFTER)
+                .bind("after", after)
+                .bind("limit", limit)
+                .filter(fetchSize(bookProperties.getDatabase().getFetchSize()))
+                .map(CustomBookRepositoryImpl::mapRow)
+                .all());
+    }
+
+    @Override
+    public Flux<Book> findAllByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return bookMetrics.timeQuery("findAllByIds", databaseClient.sql(BookSql.FIND_ALL + " WHERE id = ANY(:ids)")
+                .bind("ids", ids.toArray(UUID[]::new))
+                .map(CustomBookRepositoryImpl::mapRow)
+                .all());
+    }
+
+    @Override
+    public Flux<Book> streamAll(int fetchSize) {
+        return bookMetrics.timeQuery("streamAll", databaseClient.sql(BookSql.FIND_ALL)
+                .filter(fetchSize(fetchSize))
+                .map(CustomBookRepositoryImpl::mapRow)
+                .all());
+    }
+
+    @Override
+    public Mono<Long> countExact() {
+        return bookMetrics.timeQuery("countExact", databaseClient.sql(isPostgres() ? BookSql.COUNT_ROLLUP : BookSql.COUNT)
+                .map(row -> row.get("count", Long.class))
+                .one());
+    }
+
+    @Override
+    public Mono<Long> countEstimate() {
+        if (!isPostgres()) {
+            return countExact();
+        }
+        return bookMetrics.timeQuery("countEstimate", databaseClient.sql(BookSql.COUNT_ESTIMATE)
+                .map(row -> row.get("count", Long.class))
+                .one())
+                .filter(count -> count >= 0)
+                .switchIfEmpty(Mono.defer(this::countExact));
+    }
+
+    @Override
+    public Flux<Book> search(List<String> terms, long offset, int limit) {
+        if (isPostgres()) {
+            return bookMetrics.timeQuery("search", databaseClient.sql(BookSql.SEARCH_FULL_TEXT)
+                    .bind("prefixQuery", BookSql.prefixQuery(terms))
+                    .bind("text", String.join(" ", terms))
+                    .bind("limit", limit)
+                    .bind("offset", offset)
+                    .filter(fetchSize(bookProperties.getDatabase().getFetchSize()))
+                    .map(CustomBookRepositoryImpl::mapRow)
+                    .all());
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(BookSql.searchLike(terms.size()))
+                .bind("limit", limit)
+                .bind("offset", offset);
+        for (int i = 0; i < terms.size(); i++) {
+            spec = spec.bind("prefix" + i, BookSql.likePrefix(terms.get(i)))
+                    .bind("word" + i, BookSql.likeWord(terms.get(i)));
+        }
+        return bookMetrics.timeQuery("search", spec.filter(fetchSize(bookProperties.getDatabase().getFetchSize()))
+                .map(CustomBookRepositoryImpl::mapRow)
+                .all());
+    }
+
+    @Override
+    public Flux<AuthorStats> findAuthorStats(String after, int limit) {
+        if (after == null) {
+            return bookMetrics.timeQuery("findAuthorStats", databaseClient.sql(BookSql.authorStats(isPostgres(), false))
+                    .bind("limit", limit)
+                    .map(CustomBookRepositoryImpl::mapAuthorStats)
+                    .all());
+        }
+        return bookMetrics.timeQuery("findAuthorStats", databaseClient.sql(BookSql.authorStats(isPostgres(), true))
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(CustomBookRepositoryImpl::mapAuthorStats)
+                .all());
+    }
+
+    @Override
+    public Flux<YearStats> findYearStats() {
+        return bookMetrics.timeQuery("findYearStats", databaseClient.sql(isPostgres() ? BookSql.YEAR_STATS_ROLLUP : BookSql.YEAR_STATS)
+                .map(row -> new YearStats(row.get("published_year", Integer.class), row.get("count", Long.class)))
+                .all());
+    }
+
+    /**
+     * Streams rows from the server in chunks instead of buffering the whole result in the driver.
+     */
+    private static StatementFilterFunction fetchSize(int fetchSize) {
+        return (statement, next) -> next.execute(statement.fetchSize(fetchSize));
+    }
+
+    private boolean isPostgres() {
+        return databaseClient.getConnectionFactory().getMetadata().getName().startsWith("PostgreSQL");
+    }
+
+    private static AuthorStats mapAuthorStats(Row row, RowMetadata metadata) {
+        return new AuthorStats(
+                row.get("author", String.class),
+                row.get("books", Long.class),
+                row.get("first_year", Integer.class),
+                row.get("last_year", Integer.class)
+        );
+    }
+
+    private static Book mapRow(Row row, RowMetadata metadata) {
+        return new Book(
+                row.get("id", UUID.class),
+                row.get("title", String.class),
+                row.get("author", String.class),
+                row.get("published_year", Integer.class),
+                row.get("version", Long.class)
+        );
+    }
+}
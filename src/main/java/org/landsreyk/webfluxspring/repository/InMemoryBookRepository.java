@@ -1,44 +1,291 @@
 package org.landsreyk.webfluxspring.repository;
 
-import org.landsreyk.webfluxspring.exception.BookNotFoundException;
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.model.AuthorStats;
 import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.model.YearStats;
+import org.landsreyk.webfluxspring.search.BookSearchTerms;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Concurrent in-memory store serving the same queries as the database repository.
+ * Reads are lock-free and see a consistent book, writes are serialized so that the secondary indexes stay in step.
+ * Books are copied on the way in and out, callers never share state with the store.
+ * Active with the {@code in-memory} profile.
+ */
 @Repository
-public class InMemoryBookRepository {
+@Profile("in-memory")
+public class InMemoryBookRepository implements ReactiveDatabaseBookRepository {
 
-    private final Map<UUID, Book> books = new LinkedHashMap<>();
+    /**
+     * Same order as PostgreSQL's uuid comparison, so keyset pages match the database.
+     */
+    private static final Comparator<UUID> ID_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private final Map<UUID, Entry> books = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, Book> bySequence = new ConcurrentSkipListMap<>();
+    private final NavigableMap<UUID, Book> byId = new ConcurrentSkipListMap<>(ID_ORDER);
+    private final NavigableMap<String, NavigableMap<YearKey, Book>> byAuthor = new ConcurrentSkipListMap<>();
+    /**
+     * Number of books per published year, kept in step by every write.
+     */
+    private final NavigableMap<Integer, Long> byYearCount = new ConcurrentSkipListMap<>();
+    private final Map<AuthorTitle, UUID> byAuthorTitle = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong count = new AtomicLong();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @NonNull
+    @Override
+    public <S extends Book> Mono<S> save(@NonNull S book) {
+        return Mono.fromCallable(() -> {
+            writeLock.lock();
+            try {
+                Entry existing = books.get(book.getId());
+                if (existing == null) {
+                    add(book);
+                } else {
+                    replace(existing, book);
+                }
+                return book;
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public <S extends Book> Flux<S> saveAll(@NonNull Iterable<S> books) {
+        return Flux.fromIterable(books).concatMap(this::save);
+    }
+
+    @NonNull
+    @Override
+    public <S extends Book> Flux<S> saveAll(@NonNull Publisher<S> books) {
+        return Flux.from(books).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<Book> insert(Book book) {
+        return Mono.fromCallable(() -> {
+            writeLock.lock();
+            try {
+                if (books.containsKey(book.getId())) {
+                    throw new DuplicateBookException(book);
+                }
+                add(book);
+                return book;
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    @Override
+    public Flux<Book> insertAll(List<Book> books) {
+        return Flux.fromIterable(books)
+                .concatMap(book -> insert(book).onErrorResume(DuplicateBookException.class, e -> Mono.empty()));
+    }
+
+    @Override
+    public Mono<Long> update(Book book) {
+        return update(book, null);
+    }
+
+    @Override
+    public Mono<Long> updateIfVersion(Book book, long expectedVersion) {
+        return update(book, expectedVersion);
+    }
+
+    private Mono<Long> update(Book book, Long expectedVersion) {
+        return Mono.fromCallable(() -> {
+            writeLock.lock();
+            try {
+                Entry existing = books.get(book.getId());
+                if (existing == null || expectedVersion != null && existing.book().getVersion() != expectedVersion) {
+                    return 0L;
+                }
+                Book updated = copyOf(book);
+                updated.setVersion(existing.book().getVersion() + 1);
+                replace(existing, updated);
+                return 1L;
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    @Override
+    public Mono<Long> removeById(UUID id) {
+        return Mono.fromCallable(() -> {
+            writeLock.lock();
+            try {
+                Entry existing = books.get(id);
+                if (existing == null) {
+                    return 0L;
+                }
+                remove(existing);
+                return 1L;
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Mono<Book> findById(@NonNull UUID id) {
+        return Mono.fromSupplier(() -> {
+            Entry entry = books.get(id);
+            return entry == null ? null : copyOf(entry.book());
+        });
+    }
 
-    public Mono<Book> save(Book book) {
-        books.put(book.getId(), book);
-        return Mono.just(book);
+    @NonNull
+    @Override
+    public Mono<Book> findById(@NonNull Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::findById);
     }
 
+    @NonNull
+    @Override
+    public Mono<Boolean> existsById(@NonNull UUID id) {
+        return Mono.fromSupplier(() -> books.containsKey(id));
+    }
+
+    @NonNull
+    @Override
+    public Mono<Boolean> existsById(@NonNull Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    /**
+     * Returns all books in insertion order. Iteration is weakly consistent and never fails on concurrent writes.
+     */
+    @NonNull
+    @Override
     public Flux<Book> findAll() {
-        return Flux.fromIterable(books.values());
+        return Flux.fromIterable(bySequence.values()).map(InMemoryBookRepository::copyOf);
     }
 
     public Flux<Book> findAll(long page, long size) {
-        return findAll().skip(page * size).take(size);
+        return findPage(page * size, size);
+    }
+
+    @NonNull
+    @Override
+    public Flux<Book> findAllById(@NonNull Iterable<UUID> ids) {
+        return Flux.fromIterable(ids).concatMap(this::findById);
+    }
+
+    @NonNull
+    @Override
+    public Flux<Book> findAllById(@NonNull Publisher<UUID> ids) {
+        return Flux.from(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Flux<Book> findByAuthorAndYearRange(String author, int startYear, int endYear, Sort.Direction order, int limit) {
+        return Flux.defer(() -> {
+            NavigableMap<YearKey, Book> authorBooks = author == null ? null : byAuthor.get(author);
+            if (authorBooks == null || startYear > endYear) {
+                return Flux.empty();
+            }
+            NavigableMap<YearKey, Book> range = authorBooks.subMap(YearKey.first(startYear), true, YearKey.last(endYear), true);
+            return Flux.fromIterable(order.isAscending() ? range.values() : range.descendingMap().values());
+        }).take(limit).map(InMemoryBookRepository::copyOf);
+    }
+
+    @Override
+    public Flux<Book> findPage(long offset, long limit) {
+        return Flux.defer(() -> Flux.fromIterable(byId.values()))
+                .skip(offset)
+                .take(limit)
+                .map(InMemoryBookRepository::copyOf);
+    }
+
+    @Override
+    public Flux<Book> findPageAfter(UUID after, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(after == null ? byId.values() : byId.tailMap(after, false).values()))
+                .take(limit)
+                .map(InMemoryBookRepository::copyOf);
+    }
+
+    @Override
+    public Flux<Book> findAllByIds(Collection<UUID> ids) {
+        return Flux.fromIterable(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Flux<Book> streamAll(int fetchSize) {
+        return findAll();
+    }
+
+    /**
+     * Scans every book; the {@code memory} search engine keeps an index instead.
+     */
+    @Override
+    public Flux<Book> search(List<String> terms, long offset, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(bySequence.values()))
+                .filter(book -> BookSearchTerms.score(book, terms) > 0)
+                .sort(Comparator.comparingInt((Book book) -> BookSearchTerms.score(book, terms)).reversed()
+                        .thenComparing(Book::getId, ID_ORDER))
+                .skip(offset)
+                .take(limit)
+                .map(InMemoryBookRepository::copyOf);
     }
 
-    public Mono<Book> findById(UUID id) {
-        return Mono.justOrEmpty(books.get(id));
+    /**
+     * Reads the per-author index, ordered by {@link String#compareTo}; an author's count walks their books.
+     */
+    @Override
+    public Flux<AuthorStats> findAuthorStats(String after, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(after == null ? byAuthor.entrySet() : byAuthor.tailMap(after, false).entrySet()))
+                .mapNotNull(InMemoryBookRepository::authorStats)
+                .take(limit);
+    }
+
+    @Override
+    public Flux<YearStats> findYearStats() {
+        return Flux.defer(() -> Flux.fromIterable(byYearCount.entrySet()))
+                .map(year -> new YearStats(year.getKey(), year.getValue()));
     }
 
-    public Mono<Boolean> deleteById(UUID id) {
-        return findById(id)
-                .switchIfEmpty(Mono.error(new BookNotFoundException(id)))
-                .map(book -> {
-                    books.remove(id);
-                    return true;
-                });
+    @NonNull
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(count::get);
+    }
+
+    @Override
+    public Mono<Long> countExact() {
+        return count();
+    }
+
+    @Override
+    public Mono<Long> countEstimate() {
+        return count();
     }
 
     /**
@@ -47,7 +294,173 @@ public class InMemoryBookRepository {
      * @return Mono<Long> representing the count of books.
      */
     public Mono<Long> countBooks() {
-        return Flux.fromIterable(books.values()).count();
+        return count();
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteById(@NonNull UUID id) {
+        return removeById(id).then();
     }
 
-}
\ No newline at end of file
+    @NonNull
+    @Override
+    public Mono<Void> deleteById(@NonNull Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> delete(@NonNull Book book) {
+        return deleteById(book.getId());
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteAllById(@NonNull Iterable<? extends UUID> ids) {
+        return Flux.fromIterable(ids).concatMap(this::deleteById).then();
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteAll(@NonNull Iterable<? extends Book> books) {
+        return Flux.fromIterable(books).concatMap(this::delete).then();
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteAll(@NonNull Publisher<? extends Book> books) {
+        return Flux.from(books).concatMap(this::delete).then();
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(() -> {
+            writeLock.lock();
+            try {
+                books.values().forEach(this::remove);
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    private void add(Book book) {
+        AuthorTitle authorTitle = AuthorTitle.of(book);
+        if (byAuthorTitle.containsKey(authorTitle)) {
+            throw new DuplicateBookException(book);
+        }
+        Entry entry = new Entry(sequence.incrementAndGet(), copyOf(book));
+        byAuthorTitle.put(authorTitle, book.getId());
+        index(entry);
+        books.put(book.getId(), entry);
+        count.incrementAndGet();
+        countYear(book.getPublishedYear(), 1);
+    }
+
+    private void replace(Entry existing, Book book) {
+        AuthorTitle authorTitle = AuthorTitle.of(book);
+        UUID owner = byAuthorTitle.get(authorTitle);
+        if (owner != null && !owner.equals(book.getId())) {
+            throw new DuplicateBookException(book);
+        }
+        Entry entry = new Entry(existing.sequence(), copyOf(book));
+        byAuthorTitle.remove(AuthorTitle.of(existing.book()));
+        byAuthorTitle.put(authorTitle, book.getId());
+        index(entry);
+        if (!Objects.equals(existing.book().getAuthor(), book.getAuthor()) || existing.book().getPublishedYear() != book.getPublishedYear()) {
+            unindexAuthor(existing);
+        }
+        if (existing.book().getPublishedYear() != book.getPublishedYear()) {
+            countYear(existing.book().getPublishedYear(), -1);
+            countYear(book.getPublishedYear(), 1);
+        }
+        books.put(book.getId(), entry);
+    }
+
+    private void remove(Entry entry) {
+        Book book = entry.book();
+        books.remove(book.getId());
+        unindex(entry);
+        byAuthorTitle.remove(AuthorTitle.of(book));
+        count.decrementAndGet();
+        countYear(book.getPublishedYear(), -1);
+    }
+
+    private void countYear(int year, long delta) {
+        byYearCount.compute(year, (key, books) -> {
+            long updated = (books == null ? 0 : books) + delta;
+            return updated == 0 ? null : updated;
+        });
+    }
+
+    private void index(Entry entry) {
+        Book book = entry.book();
+        bySequence.put(entry.sequence(), book);
+        byId.put(book.getId(), book);
+        if (book.getAuthor() != null) {
+            byAuthor.computeIfAbsent(book.getAuthor(), author -> new ConcurrentSkipListMap<>())
+                    .put(new YearKey(book.getPublishedYear(), entry.sequence()), book);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        bySequence.remove(entry.sequence());
+        byId.remove(entry.book().getId());
+        unindexAuthor(entry);
+    }
+
+    private void unindexAuthor(Entry entry) {
+        Book book = entry.book();
+        NavigableMap<YearKey, Book> authorBooks = book.getAuthor() == null ? null : byAuthor.get(book.getAuthor());
+        if (authorBooks != null) {
+            authorBooks.remove(new YearKey(book.getPublishedYear(), entry.sequence()));
+            if (authorBooks.isEmpty()) {
+                byAuthor.remove(book.getAuthor());
+            }
+        }
+    }
+
+    /**
+     * Summarizes an author's books, {@code null} if a concurrent write has just removed the last of them.
+     */
+    private static AuthorStats authorStats(Map.Entry<String, NavigableMap<YearKey, Book>> author) {
+        NavigableMap<YearKey, Book> authorBooks = author.getValue();
+        Map.Entry<YearKey, Book> first = authorBooks.firstEntry();
+        Map.Entry<YearKey, Book> last = authorBooks.lastEntry();
+        if (first == null || last == null) {
+            return null;
+        }
+        return new AuthorStats(author.getKey(), authorBooks.size(), first.getKey().year(), last.getKey().year());
+    }
+
+    private static Book copyOf(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedYear(), book.getVersion());
+    }
+
+    private record Entry(long sequence, Book book) {
+    }
+
+    private record AuthorTitle(String author, String title) {
+        static AuthorTitle of(Book book) {
+            return new AuthorTitle(book.getAuthor(), book.getTitle());
+        }
+    }
+
+    private record YearKey(int year, long sequence) implements Comparable<YearKey> {
+        static YearKey first(int year) {
+            return new YearKey(year, Long.MIN_VALUE);
+        }
+
+        static YearKey last(int year) {
+            return new YearKey(year, Long.MAX_VALUE);
+        }
+
+        @Override
+        public int compareTo(YearKey other) {
+            int byYear = Integer.compare(year, other.year);
+            return byYear != 0 ? byYear : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package org.landsreyk.webfluxspring.repository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.metrics.BookMetrics;
+import org.landsreyk.webfluxspring.model.AuthorStats;
+import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.model.YearStats;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Serves the repository over blocking JDBC, running every statement on its own virtual thread so that waiting for
+ * a pooled connection or for the database parks the virtual thread instead of a Netty event loop.
+ * Runs the same {@link BookSql} statements as {@link CustomBookRepositoryImpl}, so both stacks can be compared under the same load.
+ * Active with the {@code webflux-jdbc} profile: the HTTP layer stays on WebFlux and Netty, only data access changes.
+ */
+@Repository
+@Profile("webflux-jdbc")
+@RequiredArgsConstructor
+public class JdbcBookRepository implements ReactiveDatabaseBookRepository {
+
+    private static final RowMapper<Book> ROW_MAPPER = (resultSet, rowNum) -> new Book(
+            resultSet.getObject("id", UUID.class),
+            resultSet.getString("title"),
+            resultSet.getString("author"),
+            resultSet.getObject("published_year", Integer.class),
+            resultSet.getLong("version"));
+
+    private static final RowMapper<AuthorStats> AUTHOR_STATS_MAPPER = (resultSet, rowNum) -> new AuthorStats(
+            resultSet.getString("author"),
+            resultSet.getLong("books"),
+            resultSet.getInt("first_year"),
+            resultSet.getInt("last_year"));
+
+    private static final RowMapper<YearStats> YEAR_STATS_MAPPER = (resultSet, rowNum) -> new YearStats(
+            resultSet.getInt("published_year"),
+            resultSet.getLong("count"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BookMetrics bookMetrics;
+    private final Scheduler scheduler = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "jdbc");
+    private volatile Boolean postgres;
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.dispose();
+    }
+
+    @Override
+    public Mono<Book> insert(Book book) {
+        return call("insert", () -> {
+            int rowsUpdated = jdbcTemplate.update(BookSql.INSERT, parameters(book));
+            if (rowsUpdated == 0) {
+                throw new DuplicateBookException(book);
+            }
+            return book;
+        });
+    }
+
+    @Override
+    public Flux<Book> insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return Flux.empty();
+        }
+        return call("insertAll", () -> jdbcTemplate.batchUpdate(BookSql.INSERT, books.stream().map(JdbcBookRepository::parameters).toArray(SqlParameterSource[]::new)))
+                .flatMapIterable(rowsUpdated -> IntStream.range(0, rowsUpdated.length)
+                        .filter(i -> rowsUpdated[i] > 0)
+                        .mapToObj(books::get)
+                        .toList());
+    }
+
+    @Override
+    public Mono<Long> update(Book book) {
+        return call("update", () -> (long) jdbcTemplate.update(BookSql.UPDATE, parameters(book)))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DuplicateBookException(book));
+    }
+
+    @Override
+    public Mono<Long> updateIfVersion(Book book, long expectedVersion) {
+        return call("updateIfVersion", () -> (long) jdbcTemplate.update(BookSql.UPDATE_IF_VERSION, parameters(book).addValue("expectedVersion", expectedVersion)))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DuplicateBookException(book));
+    }
+
+    @Override
+    public Mono<Long> removeById(UUID id) {
+        return call("removeById", () -> (long) jdbcTemplate.update(BookSql.DELETE_BY_ID, Map.of("id", id)));
+    }
+
+    @NonNull
+    @Override
+    public Mono<Book> findById(@NonNull UUID id) {
+        return call("findById", () -> DataAccessUtils.singleResult(
+                jdbcTemplate.query(BookSql.FIND_BY_ID, Map.of("id", id), ROW_MAPPER)));
+    }
+
+    @NonNull
+    @Override
+    public Mono<Book> findById(@NonNull Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @NonNull
+    @Override
+    public Mono<Boolean> existsById(@NonNull UUID id) {
+        return findById(id).hasElement();
+    }
+
+    @NonNull
+    @Override
+    public Mono<Boolean> existsById(@NonNull Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    /**
+     * Returns all books in id order, read in chunks like {@link #streamAll(int)}.
+     */
+    @NonNull
+    @Override
+    public Flux<Book> findAll() {
+        return streamAll(1_000);
+    }
+
+    @NonNull
+    @Override
+    public Flux<Book> findAllById(@NonNull Iterable<UUID> ids) {
+        return findAllByIds(StreamSupport.stream(ids.spliterator(), false).toList());
+    }
+
+    @NonNull
+    @Override
+    public Flux<Book> findAllById(@NonNull Publisher<UUID> ids) {
+        return Flux.from(ids).collectList().flatMapMany(this::findAllByIds);
+    }
+
+    @Override
+    public Flux<Book> findByAuthorAndYearRange(String author, int startYear, int endYear, Sort.Direction order, int limit) {
+        return query("findByAuthorAndYearRange", BookSql.FIND_BY_AUTHOR_AND_YEAR_RANGE.formatted(order.name()), new MapSqlParameterSource()
+                .addValue("author", author)
+                .addValue("startYear", startYear)
+                .addValue("endYear", endYear)
+                .addValue("limit", limit));
+    }
+
+    @Override
+    public Flux<Book> findPage(long offset, long limit) {
+        return query("findPage", BookSql.FIND_PAGE, new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("offset", offset));
+    }
+
+    @Override
+    public Flux<Book> findPageAfter(UUID after, int limit) {
+        if (after == null) {
+            return query("findPageAfter", BookSql.FIND_FIRST_PAGE, new MapSqlParameterSource("limit", limit));
+        }
+        return query("findPageAfter", BookSql.FIND_PAGE_AFTER, new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", limit));
+    }
+
+    @Override
+    public Flux<Book> findAllByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return query("findAllByIds", BookSql.FIND_ALL + " WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids));
+    }
+
+    /**
+     * Reads every book in id order, one keyset page of {@code fetchSize} rows per statement. Unlike the R2DBC cursor
+     * this holds no connection between pages, and the next page is only read once the previous one is consumed.
+     */
+    @Override
+    public Flux<Book> streamAll(int fetchSize) {
+        return chunkAfter(null, fetchSize)
+                .expand(chunk -> chunk.size() < fetchSize
+                        ? Mono.empty()
+                        : chunkAfter(chunk.get(chunk.size() - 1).getId(), fetchSize))
+                .flatMapIterable(Function.identity(), 1);
+    }
+
+    @Override
+    public Mono<Long> countExact() {
+        return call("countExact", () -> jdbcTemplate.getJdbcTemplate().queryForObject(isPostgres() ? BookSql.COUNT_ROLLUP : BookSql.COUNT, Long.class));
+    }
+
+    @Override
+    public Mono<Long> countEstimate() {
+        return call("countEstimate", () -> isPostgres()
+                        ? jdbcTemplate.getJdbcTemplate().queryForObject(BookSql.COUNT_ESTIMATE, Long.class)
+                        : null)
+                .filter(count -> count >= 0)
+                .switchIfEmpty(Mono.defer(this::countExact));
+    }
+
+    @Override
+    public Flux<Book> search(List<String> terms, long offset, int limit) {
+        return Mono.fromCallable(this::isPostgres)
+                .subscribeOn(scheduler)
+                .flatMapMany(postgres -> postgres ? searchPostgres(terms, offset, limit) : searchLike(terms, offset, limit));
+    }
+
+    @Override
+    public Flux<AuthorStats> findAuthorStats(String after, int limit) {
+        return call("findAuthorStats", () -> jdbcTemplate.query(BookSql.authorStats(isPostgres(), after != null), new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", limit), AUTHOR_STATS_MAPPER))
+                .flatMapIterable(Function.identity());
+    }
+
+    @Override
+    public Flux<YearStats> findYearStats() {
+        return call("findYearStats", () -> jdbcTemplate.getJdbcTemplate().query(isPostgres() ? BookSql.YEAR_STATS_ROLLUP : BookSql.YEAR_STATS, YEAR_STATS_MAPPER))
+                .flatMapIterable(Function.identity());
+    }
+
+    @NonNull
+    @Override
+    public Mono<Long> count() {
+        return countExact();
+    }
+
+    @NonNull
+    @Override
+    public <S extends Book> Mono<S> save(@NonNull S book) {
+        return insert(book).thenReturn(book);
+    }
+
+    @NonNull
+    @Override
+    public <S extends Book> Flux<S> saveAll(@NonNull Iterable<S> books) {
+        return Flux.fromIterable(books).concatMap(this::save);
+    }
+
+    @NonNull
+    @Override
+    public <S extends Book> Flux<S> saveAll(@NonNull Publisher<S> books) {
+        return Flux.from(books).concatMap(this::save);
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteById(@NonNull UUID id) {
+        return removeById(id).then();
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteById(@NonNull Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> delete(@NonNull Book book) {
+        return deleteById(book.getId());
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteAllById(@NonNull Iterable<? extends UUID> ids) {
+        return Flux.fromIterable(ids).concatMap(this::deleteById).then();
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteAll(@NonNull Iterable<? extends Book> books) {
+        return Flux.fromIterable(books).concatMap(this::delete).then();
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteAll(@NonNull Publisher<? extends Book> books) {
+        return Flux.from(books).concatMap(this::delete).then();
+    }
+
+    @NonNull
+    @Override
+    public Mono<Void> deleteAll() {
+        return call("deleteAll", () -> jdbcTemplate.getJdbcTemplate().update("DELETE FROM book")).then();
+    }
+
+    private Flux<Book> searchPostgres(List<String> terms, long offset, int limit) {
+        return query("search", BookSql.SEARCH_FULL_TEXT, new MapSqlParameterSource()
+                .addValue("prefixQuery", BookSql.prefixQuery(terms))
+                .addValue("text", String.join(" ", terms))
+                .addValue("limit", limit)
+                .addValue("offset", offset));
+    }
+
+    private Flux<Book> searchLike(List<String> terms, long offset, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("offset", offset);
+        for (int i = 0; i < terms.size(); i++) {
+            parameters.addValue("prefix" + i, BookSql.likePrefix(terms.get(i)))
+                    .addValue("word" + i, BookSql.likeWord(terms.get(i)));
+        }
+        return query("search", BookSql.searchLike(terms.size()), parameters);
+    }
+
+    private Mono<List<Book>> chunkAfter(UUID after, int size) {
+        return findPageAfter(after, size).collectList();
+    }
+
+    private Flux<Book> query(String query, String sql, SqlParameterSource parameters) {
+        return call(query, () -> jdbcTemplate.query(sql, parameters, ROW_MAPPER))
+                .flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Runs a blocking statement on a fresh virtual thread; a {@code null} result completes empty.
+     */
+    private <T> Mono<T> call(String query, Callable<T> statement) {
+        return bookMetrics.timeQuery(query, Mono.fromCallable(statement).subscribeOn(scheduler));
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().startsWith("PostgreSQL"));
+        }
+        return postgres;
+    }
+
+    private static MapSqlParameterSource parameters(Book book) {
+        return new MapSqlParameterSource()
+                .addValue("id", book.getId())
+                .addValue("title", book.getTitle())
+                .addValue("author", book.getAuthor())
+                .addValue("publishedYear", book.getPublishedYear());
+    }
+}
@@ -4,6 +4,7 @@ import org.landsreyk.webfluxspring.model.Book;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.lang.NonNull;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
@@ -11,9 +12,13 @@ import java.util.UUID;
 public interface ReactiveDatabaseBookRepository extends ReactiveCrudRepository<Book, UUID>, CustomBookRepository {
 
     @NonNull
-    @Query("SELECT * FROM book WHERE id = :id")
+    @Query(BookSql.FIND_BY_ID)
     Mono<Book> findById(@NonNull UUID id);
 
-    @Query("DELETE FROM book WHERE id = :id")
+    @NonNull
+    @Query(BookSql.FIND_ALL)
+    Flux<Book> findAll();
+
+    @Query(BookSql.DELETE_BY_ID)
     Mono<Void> deleteById(@NonNull UUID id);
 }
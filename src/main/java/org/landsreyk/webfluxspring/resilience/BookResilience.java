@@ -0,0 +1,191 @@
+package org.landsreyk.webfluxspring.resilience;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcTransientException;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.landsreyk.webfluxspring.exception.BookNotFoundException;
+import org.landsreyk.webfluxspring.exception.BookStoreUnavailableException;
+import org.landsreyk.webfluxspring.exception.BookVersionMismatchException;
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.exception.InvalidCursorException;
+import org.landsreyk.webfluxspring.metrics.BookMetrics;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Guards repository calls with a per-operation timeout and a circuit breaker shared by all calls to the database.
+ * Reads are additionally retried on transient errors with jittered exponential backoff, within a global retry budget;
+ * writes are never retried because a write that timed out may still have been applied.
+ * An open breaker, a timeout, an exhausted transient error or an unreachable database surfaces as
+ * {@link BookStoreUnavailableException}.
+ */
+@Component
+public class BookResilience {
+
+    private final BookProperties.Resilience properties;
+    private final BookMetrics bookMetrics;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+
+    public BookResilience(BookProperties bookProperties, BookMetrics bookMetrics, MeterRegistry meterRegistry) {
+        this.properties = bookProperties.getResilience();
+        this.bookMetrics = bookMetrics;
+        BookProperties.Resilience.CircuitBreaker breaker = properties.getCircuitBreaker();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(breaker.getFailureRateThreshold())
+                .slowCallRateThreshold(breaker.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(breaker.getSlowCallDurationThreshold())
+                .slidingWindowSize(breaker.getSlidingWindowSize())
+                .minimumNumberOfCalls(breaker.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(breaker.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(breaker.getPermittedNumberOfCallsInHalfOpenState())
+                .ignoreExceptions(DuplicateBookException.class, DataIntegrityViolationException.class,
+                        BookNotFoundException.class, BookVersionMismatchException.class, InvalidCursorException.class)
+                .build());
+        this.circuitBreaker = registry.circuitBreaker("database");
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        BookProperties.Resilience.RetryBudget budget = properties.getRetryBudget();
+        this.retryBudget = new RetryBudget(budget.getRatio(), budget.getMinPerSecond(), budget.getMaxTokens());
+        Gauge.builder("books.retry.budget", retryBudget, RetryBudget::available)
+                .description("Retries currently allowed by the retry budget")
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> read(String operation, Mono<T> mono) {
+        return Mono.defer(() -> {
+            retryBudget.recordCall();
+            return guard(operation, mono)
+                    .retryWhen(retry(operation, () -> true))
+                    .onErrorMap(e -> unavailable(operation, e));
+        });
+    }
+
+    /**
+     * Like {@link #read(String, Mono)}, but a failed query is only retried if it has not emitted a row yet,
+     * so subscribers never see duplicates.
+     */
+    public <T> Flux<T> read(String operation, Flux<T> flux) {
+        return Flux.defer(() -> {
+            retryBudget.recordCall();
+            AtomicBoolean emitted = new AtomicBoolean();
+            return guard(operation, flux)
+                    .doOnNext(row -> emitted.set(true))
+                    .retryWhen(retry(operation, () -> !emitted.get()))
+                    .onErrorMap(e -> unavailable(operation, e));
+        });
+    }
+
+    public <T> Mono<T> write(String operation, Mono<T> mono) {
+        return guard(operation, mono).onErrorMap(e -> unavailable(operation, e));
+    }
+
+    public <T> Flux<T> write(String operation, Flux<T> flux) {
+        return guard(operation, flux).onErrorMap(e -> unavailable(operation, e));
+    }
+
+    CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private <T> Mono<T> guard(String operation, Mono<T> mono) {
+        Duration timeout = timeout(operation);
+        Mono<T> timed = timeout.isZero() ? mono : mono.timeout(timeout)
+                .doOnError(TimeoutException.class, e -> bookMetrics.timeout(operation));
+        return timed.transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    /**
+     * Streams without a timeout run as long as the client reads, so they only check that the breaker is closed
+     * instead of reporting their duration as a slow call.
+     */
+    private <T> Flux<T> guard(String operation, Flux<T> flux) {
+        Duration timeout = timeout(operation);
+        if (timeout.isZero()) {
+            return Flux.defer(() -> circuitBreaker.getState() == CircuitBreaker.State.OPEN
+                    ? Flux.error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker))
+                    : flux);
+        }
+        return flux.timeout(timeout)
+                .doOnError(TimeoutException.class, e -> bookMetrics.timeout(operation))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    private Retry retry(String operation, BooleanSupplier retryable) {
+        BookProperties.Resilience.Retry retry = properties.getRetry();
+        return Retry.backoff(retry.getMaxAttempts(), retry.getMinBackoff())
+                .maxBackoff(retry.getMaxBackoff())
+                .jitter(retry.getJitter())
+                .filter(e -> isTransient(e) && retryable.getAsBoolean() && acquireRetry(operation))
+                .doBeforeRetry(signal -> bookMetrics.retry(operation))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private boolean acquireRetry(String operation) {
+        if (retryBudget.tryAcquire()) {
+            return true;
+        }
+        bookMetrics.retryBudgetExhausted(operation);
+        return false;
+    }
+
+    private Duration timeout(String operation) {
+        return properties.getTimeouts().getOrDefault(operation, properties.getTimeout());
+    }
+
+    private Throwable unavailable(String operation, Throwable e) {
+        if (e instanceof CallNotPermittedException) {
+            return new BookStoreUnavailableException("Database is unavailable, operation [%s] was not attempted".formatted(operation), e);
+        }
+        if (e instanceof TimeoutException) {
+            return new BookStoreUnavailableException("Operation [%s] timed out".formatted(operation), e);
+        }
+        if (isTransient(e)) {
+            return new BookStoreUnavailableException("Operation [%s] failed with a transient error".formatted(operation), e);
+        }
+        if (isResourceFailure(e)) {
+            return new BookStoreUnavailableException("Operation [%s] could not reach the database".formatted(operation), e);
+        }
+        return e;
+    }
+
+    /**
+     * Whether the database could not be reached at all, e.g. a refused connection. Such errors are not retried,
+     * an immediate retry would most likely fail the same way, but they are still reported as unavailable.
+     */
+    static boolean isResourceFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                    || cause instanceof R2dbcNonTransientResourceException
+                    || cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isTransient(Throwable e) {
+        return e instanceof R2dbcTransientException
+                || e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException;
+    }
+}
@@ -0,0 +1,48 @@
+package org.landsreyk.webfluxspring.resilience;
+
+/**
+ * Token bucket shared by all operations: every call earns a fraction of a retry, time earns a minimum rate,
+ * and every retry spends a whole token. When the database fails for everyone, retries stay a small share
+ * of the traffic instead of multiplying it.
+ */
+final class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxTokens;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    RetryBudget(double ratio, double minPerSecond, double maxTokens) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxTokens = maxTokens;
+        this.tokens = Math.min(maxTokens, minPerSecond);
+    }
+
+    synchronized void recordCall() {
+        refill();
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxTokens, tokens + (now - lastRefillNanos) / 1e9 * minPerSecond);
+        lastRefillNanos = now;
+    }
+}
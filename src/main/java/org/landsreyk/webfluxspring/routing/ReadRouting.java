@@ -0,0 +1,47 @@
+package org.landsreyk.webfluxspring.routing;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Marks queries that may be served by a read replica. The marks travel in the Reactor context down to
+ * {@link ReplicaRoutingConnectionFactory}, which picks the connection; without replicas they have no effect.
+ * A query that is not marked, or runs for a client pinned to the primary, always goes to the primary.
+ */
+public final class ReadRouting {
+
+    private static final String REPLICA = ReadRouting.class.getName() + ".replica";
+    private static final String PRIMARY = ReadRouting.class.getName() + ".primary";
+
+    private ReadRouting() {
+    }
+
+    public static <T> Mono<T> replica(Mono<T> query) {
+        return query.contextWrite(ReadRouting::allowReplica);
+    }
+
+    public static <T> Flux<T> replica(Flux<T> query) {
+        return query.contextWrite(ReadRouting::allowReplica);
+    }
+
+    /**
+     * Sends every query subscribed with the context to the primary, including those marked for a replica.
+     */
+    public static Context pinToPrimary(Context context) {
+        return context.put(PRIMARY, Boolean.TRUE);
+    }
+
+    public static boolean pinnedToPrimary(ContextView context) {
+        return context.hasKey(PRIMARY);
+    }
+
+    static boolean readsFromReplica(ContextView context) {
+        return context.hasKey(REPLICA) && !context.hasKey(PRIMARY);
+    }
+
+    private static Context allowReplica(Context context) {
+        return context.put(REPLICA, Boolean.TRUE);
+    }
+}
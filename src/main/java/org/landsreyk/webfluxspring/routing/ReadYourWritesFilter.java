@@ -0,0 +1,68 @@
+package org.landsreyk.webfluxspring.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * Pins a client's reads to the primary for a short window after each of its writes, so it reads its own changes
+ * even when the replicas lag behind. Clients identify themselves with a request header; the last write of each is
+ * remembered in this instance only, so the guarantee holds as long as a client's requests reach the same instance.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnProperty(name = "books.replicas.enabled")
+public class ReadYourWritesFilter implements WebFilter {
+
+    private static final Set<HttpMethod> READ_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+    private static final PathPattern BATCH_GET = PathPatternParser.defaultInstance.parse("/books/batch-get");
+
+    private final String clientHeader;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesFilter(BookProperties bookProperties) {
+        BookProperties.Replicas replicas = bookProperties.getReplicas();
+        this.clientHeader = replicas.getClientHeader();
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(replicas.getReadYourWritesWindow())
+                .maximumSize(replicas.getMaxClients())
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String client = request.getHeaders().getFirst(clientHeader);
+        if (client == null) {
+            return chain.filter(exchange);
+        }
+        if (isWrite(request)) {
+            return chain.filter(exchange)
+                    .doFinally(signal -> recentWriters.put(client, Boolean.TRUE));
+        }
+        if (recentWriters.getIfPresent(client) != null) {
+            return chain.filter(exchange)
+                    .contextWrite(ReadRouting::pinToPrimary);
+        }
+        return chain.filter(exchange);
+    }
+
+    private static boolean isWrite(ServerHttpRequest request) {
+        return !READ_METHODS.contains(request.getMethod())
+                && !BATCH_GET.matches(request.getPath().pathWithinApplication());
+    }
+}
@@ -0,0 +1,133 @@
+package org.landsreyk.webfluxspring.routing;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ValidationDepth;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Hands out connections to the primary, or to the next healthy replica in turn for queries marked with
+ * {@link ReadRouting#replica}. Replicas count as unhealthy until their first successful health check, and while
+ * none is healthy marked queries fall back to the primary.
+ */
+@Slf4j
+public class ReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory implements DisposableBean {
+
+    private final ConnectionFactory primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthy = List.of();
+    private volatile Disposable healthChecks;
+
+    /**
+     * @param primary  receives writes and every query not marked for a replica.
+     * @param replicas the replicas by name, in the order they take turns.
+     */
+    public ReplicaRoutingConnectionFactory(ConnectionFactory primary, Map<String, ConnectionFactory> replicas) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        setDefaultTargetConnectionFactory(primary);
+        setTargetConnectionFactories(new LinkedHashMap<>(replicas));
+        afterPropertiesSet();
+    }
+
+    /**
+     * Checks every replica right away and then at the given interval, each check bounded by the interval.
+     */
+    public void startHealthChecks(Duration interval) {
+        healthChecks = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> checkHealth(interval))
+                .subscribe();
+    }
+
+    /**
+     * Opens the initial connections of every pool, the primary's and the replicas'.
+     *
+     * @return Mono<Integer> of the number of connections opened.
+     */
+    public Mono<Integer> warmup() {
+        return Flux.fromStream(Stream.concat(Stream.of(primary), replicas.stream().map(Replica::factory)))
+                .ofType(ConnectionPool.class)
+                .flatMap(ConnectionPool::warmup)
+                .reduce(0, Integer::sum);
+    }
+
+    public int healthyReplicas() {
+        return healthy.size();
+    }
+
+    Mono<Void> checkHealth(Duration timeout) {
+        return Flux.fromIterable(replicas)
+                .flatMap(replica -> replica.check(timeout))
+                .then(Mono.fromRunnable(() -> healthy = replicas.stream()
+                        .filter(replica -> replica.healthy().get())
+                        .map(Replica::name)
+                        .toList()));
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> ReadRouting.readsFromReplica(context)
+                ? Mono.justOrEmpty(nextHealthyReplica())
+                : Mono.empty());
+    }
+
+    @Override
+    public void destroy() {
+        if (healthChecks != null) {
+            healthChecks.dispose();
+        }
+        Stream.concat(Stream.of(primary), replicas.stream().map(Replica::factory))
+                .filter(Disposable.class::isInstance)
+                .forEach(factory -> ((Disposable) factory).dispose());
+    }
+
+    private String nextHealthyReplica() {
+        List<String> names = healthy;
+        return names.isEmpty() ? null : names.get(Math.floorMod(next.getAndIncrement(), names.size()));
+    }
+
+    private record Replica(String name, ConnectionFactory factory, AtomicBoolean healthy) {
+
+        Replica(String name, ConnectionFactory factory) {
+            this(name, factory, new AtomicBoolean());
+        }
+
+        Mono<Boolean> check(Duration timeout) {
+            return Mono.usingWhen(factory.create(),
+                            connection -> Mono.from(connection.validate(ValidationDepth.REMOTE)),
+                            Connection::close)
+                    .timeout(timeout)
+                    .onErrorReturn(false)
+                    .defaultIfEmpty(false)
+                    .doOnNext(this::update);
+        }
+
+        private void update(boolean up) {
+            if (healthy.getAndSet(up) != up) {
+                if (up) {
+                    log.info("Read replica {} is healthy", name);
+                } else {
+                    log.warn("Read replica {} failed its health check, routing its reads elsewhere", name);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.landsreyk.webfluxspring.search;
+
+import org.landsreyk.webfluxspring.model.Book;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+/**
+ * Ranked prefix search over book titles and authors. Selected with {@code books.search.engine}.
+ */
+public interface BookSearchIndex {
+
+    /**
+     * Finds books whose title or author contains a word starting with every term of the query.
+     *
+     * @param query  free text typed by the user.
+     * @param offset number of ranked results to skip.
+     * @param limit  maximum number of results.
+     * @return Flux<Book> ordered by descending relevance.
+     */
+    Flux<Book> search(String query, long offset, int limit);
+
+    /**
+     * Adds or replaces a book in the index. Engines that search the database directly ignore it.
+     */
+    default void index(Book book) {
+    }
+
+    /**
+     * Removes a book from the index. Engines that search the database directly ignore it.
+     */
+    default void remove(UUID id) {
+    }
+}
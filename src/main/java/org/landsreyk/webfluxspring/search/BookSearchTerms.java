@@ -0,0 +1,79 @@
+package org.landsreyk.webfluxspring.search;
+
+import org.landsreyk.webfluxspring.model.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tokenization and scoring shared by the search engines, so that every engine matches the same words.
+ * A term matches a book when it is a prefix of a word of the title or the author.
+ */
+public final class BookSearchTerms {
+
+    private static final int TITLE_WORD = 4;
+    private static final int TITLE_PREFIX = 3;
+    private static final int AUTHOR_WORD = 2;
+    private static final int AUTHOR_PREFIX = 1;
+
+    private BookSearchTerms() {
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits; everything else separates words.
+     *
+     * @param text text to split, may be {@code null}.
+     * @return the words in order of appearance.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Scores a book against the terms; whole words score above prefixes and title matches above author matches.
+     *
+     * @return the score, or 0 if some term matches neither the title nor the author.
+     */
+    public static int score(Book book, List<String> terms) {
+        List<String> title = tokenize(book.getTitle());
+        List<String> author = tokenize(book.getAuthor());
+        int score = 0;
+        for (String term : terms) {
+            int best = Math.max(match(title, term, TITLE_WORD, TITLE_PREFIX), match(author, term, AUTHOR_WORD, AUTHOR_PREFIX));
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static int match(List<String> words, String term, int wordScore, int prefixScore) {
+        int best = 0;
+        for (String word : words) {
+            if (word.equals(term)) {
+                return wordScore;
+            }
+            if (word.startsWith(term)) {
+                best = prefixScore;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,30 @@
+package org.landsreyk.webfluxspring.search;
+
+import lombok.RequiredArgsConstructor;
+import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.repository.ReactiveDatabaseBookRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Searches the database on every request; on PostgreSQL the query is served by the full-text and trigram indexes.
+ */
+@Component
+@ConditionalOnProperty(name = "books.search.engine", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DatabaseBookSearchIndex implements BookSearchIndex {
+
+    private final ReactiveDatabaseBookRepository bookRepository;
+
+    @Override
+    public Flux<Book> search(String query, long offset, int limit) {
+        List<String> terms = BookSearchTerms.tokenize(query);
+        if (terms.isEmpty()) {
+            return Flux.empty();
+        }
+        return bookRepository.search(terms, offset, limit);
+    }
+}
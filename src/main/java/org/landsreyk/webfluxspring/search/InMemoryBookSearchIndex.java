@@ -0,0 +1,117 @@
+package org.landsreyk.webfluxspring.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.repository.ReactiveDatabaseBookRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process inverted index from words to books. Prefix lookups are range scans of the sorted word map.
+ * Loaded from the repository at startup and kept up to date by {@code BookService} mutations, so it only
+ * sees changes made through this instance.
+ */
+@Component
+@ConditionalOnProperty(name = "books.search.engine", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryBookSearchIndex implements BookSearchIndex {
+
+    private final ReactiveDatabaseBookRepository bookRepository;
+
+    private final Map<UUID, Book> books = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<UUID>> postings = new ConcurrentSkipListMap<>();
+
+    @PostConstruct
+    public void load() {
+        bookRepository.findAll().doOnNext(this::index).blockLast();
+    }
+
+    @Override
+    public Flux<Book> search(String query, long offset, int limit) {
+        List<String> terms = BookSearchTerms.tokenize(query);
+        if (terms.isEmpty()) {
+            return Flux.empty();
+        }
+        return Flux.defer(() -> Flux.fromIterable(candidates(terms)))
+                .mapNotNull(books::get)
+                .map(book -> new Scored(book, BookSearchTerms.score(book, terms)))
+                .filter(scored -> scored.score() > 0)
+                .sort(Scored.ORDER)
+                .skip(offset)
+                .take(limit)
+                .map(Scored::book);
+    }
+
+    @Override
+    public synchronized void index(Book book) {
+        remove(book.getId());
+        Book copy = new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedYear(), book.getVersion());
+        books.put(copy.getId(), copy);
+        for (String word : words(copy)) {
+            postings.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(copy.getId());
+        }
+    }
+
+    @Override
+    public synchronized void remove(UUID id) {
+        Book existing = books.remove(id);
+        if (existing == null) {
+            return;
+        }
+        for (String word : words(existing)) {
+            Set<UUID> ids = postings.get(word);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Intersects the books matching each term, starting from the term with the fewest matches.
+     */
+    private Set<UUID> candidates(List<String> terms) {
+        List<Set<UUID>> matches = terms.stream()
+                .distinct()
+                .map(this::prefixMatches)
+                .sorted(Comparator.comparingInt(Set::size))
+                .toList();
+        Set<UUID> result = new HashSet<>(matches.get(0));
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+            result.retainAll(matches.get(i));
+        }
+        return result;
+    }
+
+    private Set<UUID> prefixMatches(String term) {
+        Set<UUID> ids = new HashSet<>();
+        postings.subMap(term, true, term + Character.MAX_VALUE, false).values().forEach(ids::addAll);
+        return ids;
+    }
+
+    private static Set<String> words(Book book) {
+        Set<String> words = new HashSet<>(BookSearchTerms.tokenize(book.getTitle()));
+        words.addAll(BookSearchTerms.tokenize(book.getAuthor()));
+        return words;
+    }
+
+    private record Scored(Book book, int score) {
+        static final Comparator<Scored> ORDER = Comparator.comparingInt(Scored::score).reversed()
+                .thenComparing(scored -> scored.book().getTitle(), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(scored -> scored.book().getId());
+    }
+}
@@ -0,0 +1,151 @@
+package org.landsreyk.webfluxspring.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.landsreyk.webfluxspring.metrics.BookMetrics;
+import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.repository.ReactiveDatabaseBookRepository;
+import org.landsreyk.webfluxspring.resilience.BookResilience;
+import org.landsreyk.webfluxspring.routing.ReadRouting;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent lookups by id into batches, each resolved with one {@code WHERE id = ANY(...)} query.
+ * A batch closes when the window of its first lookup has passed or {@code books.batching.max-size} ids have
+ * joined. Lookups of an id that is already waiting or being loaded share that load.
+ * <p>
+ * Batches are closed by hand rather than with {@code bufferTimeout}, which can leave an id that arrives while the
+ * window closes out of every batch until the next lookup comes along.
+ * <p>
+ * Batches run outside the callers' Reactor context and read from a replica, so callers pinned to the primary
+ * are not batched, see {@code BookService#getById}.
+ */
+@Slf4j
+@Component
+public class BookBatchLoader {
+
+    private final ReactiveDatabaseBookRepository bookRepository;
+    private final BookResilience bookResilience;
+    private final BookMetrics bookMetrics;
+    private final Map<UUID, Sinks.One<Book>> inFlight = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Duration window;
+    /**
+     * Closes batches when their window has passed. Owned by the loader, so that swapping the shared schedulers
+     * cannot stop the batches.
+     */
+    private final Scheduler timer = Schedulers.newSingle("book-batches", true);
+    /**
+     * Ids of the batch being collected, guarded by {@code this}.
+     */
+    private List<UUID> pending = new ArrayList<>();
+
+    public BookBatchLoader(ReactiveDatabaseBookRepository bookRepository, BookResilience bookResilience,
+                           BookMetrics bookMetrics, BookProperties bookProperties) {
+        this.bookRepository = bookRepository;
+        this.bookResilience = bookResilience;
+        this.bookMetrics = bookMetrics;
+        this.maxSize = bookProperties.getBatching().getMaxSize();
+        this.window = bookProperties.getBatching().getWindow();
+    }
+
+    /**
+     * Loads a book as part of the next batch.
+     *
+     * @param id The id of the book.
+     * @return Mono<Book> of the book, empty if it does not exist.
+     */
+    public Mono<Book> load(UUID id) {
+        return Mono.defer(() -> {
+            Sinks.One<Book> sink = Sinks.one();
+            Sinks.One<Book> waiting = inFlight.putIfAbsent(id, sink);
+            if (waiting != null) {
+                return waiting.asMono();
+            }
+            enqueue(id);
+            return sink.asMono();
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        timer.dispose();
+    }
+
+    /**
+     * Adds an id to the current batch. The first id of a batch starts its window, and a full batch is loaded at
+     * once. A window that ends after its batch was loaded for being full closes the next batch early, which only
+     * makes that batch smaller.
+     */
+    private void enqueue(UUID id) {
+        List<UUID> full = null;
+        boolean first;
+        synchronized (this) {
+            pending.add(id);
+            first = pending.size() == 1;
+            if (pending.size() >= maxSize) {
+                full = pending;
+                pending = new ArrayList<>();
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        } else if (first) {
+            timer.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        List<UUID> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(List<UUID> ids) {
+        loadBatch(ids).subscribe(null, error -> log.error("Batched lookup failed", error));
+    }
+
+    private Mono<Void> loadBatch(List<UUID> ids) {
+        bookMetrics.batch(ids.size());
+        return bookResilience.read("findAllByIds", ReadRouting.replica(bookRepository.findAllByIds(ids)))
+                .collectMap(Book::getId)
+                .doOnNext(books -> ids.forEach(id -> {
+                    Sinks.One<Book> sink = inFlight.remove(id);
+                    Book book = books.get(id);
+                    if (book == null) {
+                        sink.tryEmitEmpty();
+                    } else {
+                        sink.tryEmitValue(book);
+                    }
+                }))
+                .onErrorResume(error -> {
+                    ids.forEach(id -> {
+                        Sinks.One<Book> sink = inFlight.remove(id);
+                        if (sink != null) {
+                            sink.tryEmitError(error);
+                        }
+                    });
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
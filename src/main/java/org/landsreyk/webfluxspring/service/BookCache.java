@@ -0,0 +1,133 @@
+package org.landsreyk.webfluxspring.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.landsreyk.webfluxspring.model.Book;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of books keyed by id. Concurrent misses for the same id share a single load.
+ * When disabled with {@code books.cache.enabled=false} every lookup goes straight to the loader.
+ * <p>
+ * With read replicas, loads may come from a replica that has not seen the latest write yet. For the
+ * read-your-writes window after a book was invalidated its loads are therefore passed through without being cached,
+ * so a lagging replica cannot put the state from before the write back into the cache for its whole lifetime.
+ */
+@Component
+public class BookCache {
+
+    private final AsyncCache<UUID, Book> cache;
+    /**
+     * Books invalidated within the read-your-writes window, {@code null} without replicas.
+     */
+    private final Cache<UUID, Boolean> recentlyWritten;
+
+    public BookCache(BookProperties bookProperties, MeterRegistry meterRegistry) {
+        BookProperties.Cache properties = bookProperties.getCache();
+        if (!properties.isEnabled()) {
+            this.cache = null;
+            this.recentlyWritten = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+        BookProperties.Replicas replicas = bookProperties.getReplicas();
+        this.recentlyWritten = !replicas.isEnabled() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(replicas.getReadYourWritesWindow())
+                .maximumSize(properties.getMaximumSize())
+                .build();
+    }
+
+    /**
+     * Returns the cached book or loads it, caching the result if the loader emits one.
+     *
+     * @param id     The id of the book.
+     * @param loader Loads the book on a miss.
+     * @return Mono<Book> of the book, empty if the loader found none.
+     */
+    public Mono<Book> get(UUID id, Function<UUID, Mono<Book>> loader) {
+        if (cache == null) {
+            return loader.apply(id);
+        }
+        return Mono.defer(() -> {
+            CompletableFuture<Book> cached = cache.getIfPresent(id);
+            if (cached == null && recentlyWritten(id)) {
+                return loader.apply(id);
+            }
+            return Mono.fromFuture(() -> cache.get(id, (key, executor) -> loader.apply(key).toFuture()), true);
+        });
+    }
+
+    /**
+     * Returns the cached books and loads all missing ones with a single call of the loader, caching what it finds.
+     *
+     * @param ids    The ids of the books.
+     * @param loader Loads the books missing from the cache, keyed by id.
+     * @return Mono<Map<UUID, Book>> of the books found; ids of books that do not exist are absent.
+     */
+    public Mono<Map<UUID, Book>> getAll(Collection<UUID> ids, Function<Set<UUID>, Mono<Map<UUID, Book>>> loader) {
+        if (cache == null) {
+            return loader.apply(new LinkedHashSet<>(ids));
+        }
+        return Mono.defer(() -> {
+            Set<UUID> uncached = new LinkedHashSet<>();
+            List<UUID> cacheable = new ArrayList<>();
+            for (UUID id : ids) {
+                if (cache.getIfPresent(id) == null && recentlyWritten(id)) {
+                    uncached.add(id);
+                } else {
+                    cacheable.add(id);
+                }
+            }
+            Mono<Map<UUID, Book>> cached = Mono.fromFuture(() -> cache.getAll(cacheable,
+                    (keys, executor) -> loader.apply(Set.copyOf(keys)).toFuture()), true);
+            if (uncached.isEmpty()) {
+                return cached.map(books -> Map.copyOf(books));
+            }
+            return Mono.zip(cached, loader.apply(uncached), (hits, loaded) -> {
+                Map<UUID, Book> books = new HashMap<>(hits);
+                books.putAll(loaded);
+                return Map.copyOf(books);
+            });
+        });
+    }
+
+    public void put(Book book) {
+        if (cache != null) {
+            cache.put(book.getId(), CompletableFuture.completedFuture(book));
+        }
+    }
+
+    public void invalidate(UUID id) {
+        if (cache != null) {
+            if (recentlyWritten != null) {
+                recentlyWritten.put(id, Boolean.TRUE);
+            }
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    private boolean recentlyWritten(UUID id) {
+        return recentlyWritten != null && recentlyWritten.getIfPresent(id) != null;
+    }
+}
@@ -0,0 +1,112 @@
+package org.landsreyk.webfluxspring.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.dto.BookEventDTO;
+import org.landsreyk.webfluxspring.dto.BookEventType;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process change feed of book mutations shared by all live stream subscribers.
+ * Recent events are retained so that a reconnecting subscriber can resume from its last seen sequence.
+ * <p>
+ * Sequences restart with every start of the application, so event ids are prefixed with the start time,
+ * {@code <epoch>-<sequence>}. An id from another start cannot be resumed.
+ */
+@Slf4j
+@Component
+public class BookChangeFeed {
+
+    private final Sinks.Many<BookEventDTO> sink;
+    private final BookProperties.Stream properties;
+    private final long epoch = System.currentTimeMillis();
+    private long sequence;
+
+    public BookChangeFeed(BookProperties bookProperties) {
+        this.properties = bookProperties.getStream();
+        this.sink = Sinks.many().replay().limit(properties.getHistorySize());
+    }
+
+    public synchronized void publish(BookEventType type, UUID bookId, BookDTO book) {
+        long next = ++sequence;
+        sink.emitNext(new BookEventDTO(eventId(next), next, type, bookId, book), Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    public synchronized long currentSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the event id of the given sequence in this start of the feed.
+     */
+    public String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * Reads the sequence of an event id.
+     *
+     * @param eventId id of an event, as sent with it.
+     * @return the sequence, or {@code null} if the id is malformed, from another start of the feed or ahead of it.
+     */
+    public Long sequenceOf(String eventId) {
+        int separator = eventId.indexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(String.valueOf(epoch))) {
+            return null;
+        }
+        try {
+            long eventSequence = Long.parseLong(eventId.substring(separator + 1));
+            return eventSequence >= 0 && eventSequence <= currentSequence() ? eventSequence : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Subscribes to the live feed.
+     *
+     * @param after sequence of the last event seen by the subscriber, or {@code null} to receive only new events.
+     * @return Flux<BookEventDTO> of events published after the given sequence, failing with
+     * {@link MissedEventsException} if some of them are no longer retained.
+     */
+    public Flux<BookEventDTO> events(Long after) {
+        Flux<BookEventDTO> events = Flux.defer(() -> {
+            long from = after != null ? after : currentSequence();
+            // the oldest retained event comes first, anything but the next one means the history has moved past it
+            AtomicBoolean first = new AtomicBoolean(true);
+            return sink.asFlux()
+                    .filter(event -> event.getSequence() > from)
+                    .<BookEventDTO>handle((event, next) -> {
+                        if (first.getAndSet(false) && event.getSequence() != from + 1) {
+                            next.error(new MissedEventsException());
+                        } else {
+                            next.next(event);
+                        }
+                    });
+        });
+        return switch (properties.getOverflow()) {
+            case DROP_OLDEST -> events.onBackpressureBuffer(properties.getBufferSize(),
+                    dropped -> log.debug("Dropped change event {} for a slow subscriber", dropped.getSequence()),
+                    BufferOverflowStrategy.DROP_OLDEST);
+            case DISCONNECT -> events.onBackpressureBuffer(properties.getBufferSize(),
+                    dropped -> log.debug("Disconnecting a slow subscriber at change event {}", dropped.getSequence()));
+        };
+    }
+
+    /**
+     * Signals that events after the requested sequence have already left the history.
+     */
+    public static class MissedEventsException extends RuntimeException {
+
+        MissedEventsException() {
+            super("Change events after the last seen event are no longer retained", null, false, false);
+        }
+    }
+}
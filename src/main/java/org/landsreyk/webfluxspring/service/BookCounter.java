@@ -0,0 +1,40 @@
+package org.landsreyk.webfluxspring.service;
+
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.landsreyk.webfluxspring.repository.ReactiveDatabaseBookRepository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Counts books without scanning the table. The exact count reads a maintained counter, the approximate count
+ * reads table statistics and is shared by all callers for a short time.
+ */
+@Component
+public class BookCounter {
+
+    private final ReactiveDatabaseBookRepository bookRepository;
+    private final Mono<Long> approximate;
+
+    public BookCounter(ReactiveDatabaseBookRepository bookRepository, BookProperties bookProperties) {
+        this.bookRepository = bookRepository;
+        Duration ttl = bookProperties.getCount().getCacheTtl();
+        this.approximate = Mono.defer(bookRepository::countEstimate)
+                .cache(count -> ttl, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    /**
+     * @return Mono<Long> with the exact number of books.
+     */
+    public Mono<Long> exact() {
+        return bookRepository.countExact();
+    }
+
+    /**
+     * @return Mono<Long> with the estimated number of books, at most the configured cache TTL old.
+     */
+    public Mono<Long> approximate() {
+        return approximate;
+    }
+}
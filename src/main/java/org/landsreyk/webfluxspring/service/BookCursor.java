@@ -0,0 +1,76 @@
+package org.landsreyk.webfluxspring.service;
+
+import org.landsreyk.webfluxspring.exception.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Encodes pagination positions as opaque, URL-safe tokens: the last id for keyset pages,
+ * the number of skipped results for ranked search pages, and the last author for author statistics.
+ */
+final class BookCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private BookCursor() {
+    }
+
+    static String encode(UUID lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(16)
+                .putLong(lastId.getMostSignificantBits())
+                .putLong(lastId.getLeastSignificantBits());
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    static UUID decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+        if (bytes.length != 16) {
+            throw new InvalidCursorException(cursor);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    static String encodeOffset(long offset) {
+        return ENCODER.encodeToString(ByteBuffer.allocate(8).putLong(offset).array());
+    }
+
+    static long decodeOffset(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+        if (bytes.length != 8) {
+            throw new InvalidCursorException(cursor);
+        }
+        long offset = ByteBuffer.wrap(bytes).getLong();
+        if (offset < 0) {
+            throw new InvalidCursorException(cursor);
+        }
+        return offset;
+    }
+
+    static String encodeAuthor(String lastAuthor) {
+        return ENCODER.encodeToString(lastAuthor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeAuthor(String cursor) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(DECODER.decode(cursor))).toString();
+        } catch (IllegalArgumentException | CharacterCodingException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
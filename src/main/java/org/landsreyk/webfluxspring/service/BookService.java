@@ -1,18 +1,43 @@
 package org.landsreyk.webfluxspring.service;
 
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.landsreyk.webfluxspring.dto.AuthorStatsDTO;
+import org.landsreyk.webfluxspring.dto.AuthorStatsPageDTO;
+import org.landsreyk.webfluxspring.dto.BookBatchDTO;
+import org.landsreyk.webfluxspring.dto.BookCountDTO;
 import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.dto.BookEventDTO;
+import org.landsreyk.webfluxspring.dto.BookEventType;
+import org.landsreyk.webfluxspring.dto.BookPageDTO;
+import org.landsreyk.webfluxspring.dto.BulkResultDTO;
+import org.landsreyk.webfluxspring.dto.YearStatsDTO;
 import org.landsreyk.webfluxspring.exception.BookNotFoundException;
+import org.landsreyk.webfluxspring.exception.BookStoreUnavailableException;
+import org.landsreyk.webfluxspring.exception.BookVersionMismatchException;
 import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.exception.InvalidCursorException;
 import org.landsreyk.webfluxspring.mapper.BookMapper;
+import org.landsreyk.webfluxspring.metrics.BookMetrics;
 import org.landsreyk.webfluxspring.model.Book;
 import org.landsreyk.webfluxspring.repository.ReactiveDatabaseBookRepository;
+import org.landsreyk.webfluxspring.resilience.BookResilience;
+import org.landsreyk.webfluxspring.routing.ReadRouting;
+import org.landsreyk.webfluxspring.search.BookSearchIndex;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 
 import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -20,44 +45,199 @@ public class BookService {
 
     private final ReactiveDatabaseBookRepository bookRepository;
     private final BookMapper bookMapper;
+    private final BookCache bookCache;
+    private final BookBatchLoader bookBatchLoader;
+    private final BookCounter bookCounter;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookChangeFeed bookChangeFeed;
+    private final BookMetrics bookMetrics;
+    private final BookResilience bookResilience;
+    private final Validator validator;
+    private final BookProperties bookProperties;
 
     public Mono<BookDTO> create(BookDTO bookDTO) {
         Book book = bookMapper.mapToEntity(bookDTO);
         Mono<Book> mono = validateAndCreateBook(book);
-        return mono.map(bookMapper::mapToDTO);
+        return mono.doOnNext(bookCache::put)
+                .doOnNext(bookSearchIndex::index)
+                .map(bookMapper::mapToDTO)
+                .doOnNext(created -> bookChangeFeed.publish(BookEventType.CREATED, created.getId(), created));
+    }
+
+    /**
+     * Validates and inserts a stream of books in batches, one statement per batch.
+     * Batches are written one at a time, so a slow database slows down consumption of the input.
+     *
+     * @param bookDTOs The books to create.
+     * @return Flux<BulkResultDTO> with accepted, duplicate and invalid counts for every batch.
+     */
+    public Flux<BulkResultDTO> createAll(Flux<BookDTO> bookDTOs) {
+        return bookDTOs
+                .buffer(bookProperties.getBulk().getBatchSize())
+                .index()
+                .concatMap(batch -> createBatch(batch.getT1(), batch.getT2()), 1);
     }
 
     public Flux<BookDTO> getAll(long page, long size) {
-        return bookRepository.findAll()
-                .skip(page * size)
-                .take(size)
+        return bookResilience.read("findPage", ReadRouting.replica(bookRepository.findPage(page * size, size)))
                 .map(bookMapper::mapToDTO);
     }
 
+    /**
+     * Retrieves a page of books ordered by id, starting after the position encoded in the cursor.
+     *
+     * @param after opaque cursor returned with the previous page, or {@code null} for the first page.
+     * @param size  maximum number of books in the page.
+     * @return Mono<BookPageDTO> with the books and the cursor of the next page, if any.
+     * @throws InvalidCursorException if the cursor cannot be decoded.
+     */
+    public Mono<BookPageDTO> getPage(String after, int size) {
+        return Flux.defer(() -> bookResilience.read("findPageAfter", ReadRouting.replica(bookRepository.findPageAfter(after == null ? null : BookCursor.decode(after), size + 1))))
+                .map(bookMapper::mapToDTO)
+                .collectList()
+                .map(books -> {
+                    if (books.size() <= size) {
+                        return new BookPageDTO(books, null);
+                    }
+                    List<BookDTO> page = books.subList(0, size);
+                    return new BookPageDTO(page, BookCursor.encode(page.get(size - 1).getId()));
+                });
+    }
+
+    /**
+     * Finds the author's books published within the year range.
+     *
+     * @param author    exact author name.
+     * @param startYear first published year, inclusive.
+     * @param endYear   last published year, inclusive.
+     * @param order     order of the published year.
+     * @param limit     maximum number of books.
+     * @return Flux<BookDTO> of at most {@code limit} books.
+     */
+    public Flux<BookDTO> findByAuthorAndYearRange(String author, int startYear, int endYear, Sort.Direction order, int limit) {
+        return bookResilience.read("findByAuthorAndYearRange", ReadRouting.replica(bookRepository.findByAuthorAndYearRange(author, startYear, endYear, order, limit)))
+                .map(bookMapper::mapToDTO);
+    }
+
+    /**
+     * Searches titles and authors for words starting with the terms of the query, most relevant first.
+     *
+     * @param query free text, typically what the user has typed so far.
+     * @param after opaque cursor returned with the previous page, or {@code null} for the first page.
+     * @param size  maximum number of books in the page.
+     * @return Mono<BookPageDTO> with the ranked books and the cursor of the next page, if any.
+     * @throws InvalidCursorException if the cursor cannot be decoded.
+     */
+    public Mono<BookPageDTO> search(String query, String after, int size) {
+        return Mono.fromSupplier(() -> after == null ? 0L : BookCursor.decodeOffset(after))
+                .flatMap(offset -> bookResilience.read("search", ReadRouting.replica(bookSearchIndex.search(query, offset, size + 1)))
+                        .map(bookMapper::mapToDTO)
+                        .collectList()
+                        .map(books -> books.size() <= size
+                                ? new BookPageDTO(books, null)
+                                : new BookPageDTO(books.subList(0, size), BookCursor.encodeOffset(offset + size))));
+    }
+
+    /**
+     * Retrieves a book, from the cache when possible. Cache hits never reach the database, so they are still served
+     * while the circuit breaker is open. A client pinned to the primary after its own write skips the cache, which
+     * may still hold what a lagging replica returned to other clients. The cache loads outside the caller's
+     * subscription, so the caller's context is handed to the load explicitly. Misses are batched with concurrent
+     * lookups by {@link BookBatchLoader}.
+     *
+     * @param id The id of the book.
+     * @return Mono<BookDTO> of the book.
+     * @throws BookNotFoundException         if no book with the given id exists.
+     * @throws BookStoreUnavailableException if the database is unavailable.
+     */
     public Mono<BookDTO> getById(UUID id) {
-        return bookRepository.findById(id)
-                .retry(3)
+        return Mono.deferContextual(context -> ReadRouting.pinnedToPrimary(context)
+                        ? findById(id, context)
+                        : bookCache.get(id, key -> findById(key, context)))
                 .switchIfEmpty(Mono.error(new BookNotFoundException(id)))
-                .onErrorResume(e -> Mono.error(new RuntimeException("Error while fetching a book with id = " + id, e)))
                 .map(bookMapper::mapToDTO);
     }
 
-    public Mono<Long> update(UUID id, BookDTO bookDTO) {
-        return bookRepository.findById(id)
-                .switchIfEmpty(Mono.error(new BookNotFoundException(id)))
-                .map(book -> {
-                    book.setAuthor(bookDTO.getAuthor());
-                    book.setTitle(bookDTO.getTitle());
-                    book.setPublishedYear(bookDTO.getPublishedYear());
-                    return book;
+    /**
+     * Retrieves many books at once. Cached books are served from the cache and all others are loaded with one query.
+     * Like {@link #getById(UUID)}, a client pinned to the primary skips the cache.
+     *
+     * @param ids The ids of the books; duplicates are resolved once.
+     * @return Mono<BookBatchDTO> with the books in request order and the ids that match no book.
+     */
+    public Mono<BookBatchDTO> getByIds(List<UUID> ids) {
+        List<UUID> distinct = ids.stream().distinct().toList();
+        return Mono.deferContextual(context -> {
+                    Function<Set<UUID>, Mono<Map<UUID, Book>>> load = missing ->
+                            bookResilience.read("findAllByIds", ReadRouting.replica(bookRepository.findAllByIds(missing)))
+                                    .collectMap(Book::getId)
+                                    .contextWrite(context);
+                    return ReadRouting.pinnedToPrimary(context)
+                            ? load.apply(new LinkedHashSet<>(distinct))
+                            : bookCache.getAll(distinct, load);
                 })
-                .flatMap(bookRepository::update);
+                .map(books -> new BookBatchDTO(
+                        distinct.stream().filter(books::containsKey).map(id -> bookMapper.mapToDTO(books.get(id))).toList(),
+                        distinct.stream().filter(id -> !books.containsKey(id)).toList()));
+    }
+
+    public Mono<Long> update(UUID id, BookDTO bookDTO) {
+        return updateAndGet(id, bookDTO).thenReturn(1L);
+    }
+
+    public Mono<BookDTO> updateAndGet(UUID id, BookDTO bookDTO) {
+        return updateAndGet(id, bookDTO, null);
+    }
+
+    /**
+     * Updates a book with a single statement, the affected row count tells whether the book exists.
+     * With an expected version the update is a compare-and-set that only applies to that version.
+     *
+     * @param id              The id of the book to update.
+     * @param bookDTO         The new state of the book.
+     * @param expectedVersion The version the client last read, or {@code null} to update unconditionally.
+     * @return Mono<BookDTO> of the updated book; its version is only known for a conditional update.
+     * @throws BookNotFoundException        if no book with the given id exists.
+     * @throws BookVersionMismatchException if the book exists with a different version.
+     */
+    public Mono<BookDTO> updateAndGet(UUID id, BookDTO bookDTO, Long expectedVersion) {
+        Book book = new Book(id, bookDTO.getTitle(), bookDTO.getAuthor(), bookDTO.getPublishedYear());
+        Mono<Long> update = expectedVersion == null
+                ? bookResilience.write("update", bookRepository.update(book))
+                : bookResilience.write("updateIfVersion", bookRepository.updateIfVersion(book, expectedVersion));
+        return update
+                .flatMap(rowsUpdated -> rowsUpdated == 0
+                        ? updateMissed(id, expectedVersion)
+                        : Mono.just(book))
+                .doOnNext(bookSearchIndex::index)
+                .map(bookMapper::mapToDTO)
+                .doOnNext(updated -> {
+                    updated.setVersion(expectedVersion == null ? null : expectedVersion + 1);
+                    bookCache.invalidate(id);
+                    bookChangeFeed.publish(BookEventType.UPDATED, id, updated);
+                });
     }
 
     public Mono<Void> delete(UUID id) {
-        return bookRepository.findById(id)
-                .switchIfEmpty(Mono.error(new BookNotFoundException(id)))
-                .then(bookRepository.deleteById(id));
+        return bookResilience.write("removeById", bookRepository.removeById(id))
+                .flatMap(rowsDeleted -> rowsDeleted == 0
+                        ? Mono.error(new BookNotFoundException(id))
+                        : Mono.<Void>empty())
+                .doOnSuccess(unused -> {
+                    bookCache.invalidate(id);
+                    bookSearchIndex.remove(id);
+                    bookChangeFeed.publish(BookEventType.DELETED, id, null);
+                });
+    }
+
+    /**
+     * Streams the whole catalog from a single database cursor, pulling rows only as fast as they are consumed.
+     *
+     * @return Flux<BookDTO> of all books.
+     */
+    public Flux<BookDTO> exportAll() {
+        return bookResilience.read("streamAll", ReadRouting.replica(bookRepository.streamAll(bookProperties.getExport().getFetchSize())))
+                .map(bookMapper::mapToDTO);
     }
 
     /**
@@ -66,26 +246,99 @@ public class BookService {
      * @return Mono<Long> representing the total number of books.
      */
     public Mono<Long> countBooks() {
-        return bookRepository.count();
+        return bookResilience.read("countExact", ReadRouting.replica(bookCounter.exact()));
+    }
+
+    /**
+     * Counts books in constant time, either exactly or from a cached estimate.
+     *
+     * @param approximate Whether an estimate from table statistics is good enough.
+     * @return Mono<BookCountDTO> with the count and whether it is approximate.
+     */
+    public Mono<BookCountDTO> countBooks(boolean approximate) {
+        Mono<Long> books = approximate
+                ? bookResilience.read("countEstimate", ReadRouting.replica(bookCounter.approximate()))
+                : bookResilience.read("countExact", ReadRouting.replica(bookCounter.exact()));
+        return books
+                .map(count -> new BookCountDTO(count, approximate));
+    }
+
+    /**
+     * Retrieves a page of per-author book counts and year ranges, ordered by author. The figures come from a rollup
+     * kept up to date by every write, so a page costs the same however large the catalog grows.
+     *
+     * @param after opaque cursor returned with the previous page, or {@code null} for the first page.
+     * @param size  maximum number of authors on the page.
+     * @return Mono<AuthorStatsPageDTO> with the authors and the cursor of the next page, if any.
+     * @throws InvalidCursorException if the cursor cannot be decoded.
+     */
+    public Mono<AuthorStatsPageDTO> getAuthorStats(String after, int size) {
+        return Flux.defer(() -> bookResilience.read("findAuthorStats", ReadRouting.replica(bookRepository.findAuthorStats(after == null ? null : BookCursor.decodeAuthor(after), size + 1))))
+                .map(bookMapper::mapToDTO)
+                .collectList()
+                .map(authors -> {
+                    if (authors.size() <= size) {
+                        return new AuthorStatsPageDTO(authors, null);
+                    }
+                    List<AuthorStatsDTO> page = authors.subList(0, size);
+                    return new AuthorStatsPageDTO(page, BookCursor.encodeAuthor(page.get(size - 1).getAuthor()));
+                });
+    }
+
+    /**
+     * Retrieves the number of books per published year from the same rollup as {@link #getAuthorStats}.
+     *
+     * @return Flux<YearStatsDTO> of every year that has books, in ascending order.
+     */
+    public Flux<YearStatsDTO> getYearStats() {
+        return bookResilience.read("findYearStats", ReadRouting.replica(bookRepository.findYearStats()))
+                .map(bookMapper::mapToDTO);
     }
 
 
     /**
      * Validates and creates a new book if it does not already exist in the system.
+     * Uniqueness of title and author is enforced by the database in the same statement as the insert.
      *
      * @param book The book data to create.
      * @return Mono<Book> of the created book if validation passes; emits error if duplicate is found.
      * @throws DuplicateBookException if a book with the same title and author exists.
      */
     private Mono<Book> validateAndCreateBook(Book book) {
-        return bookRepository.findAll().any(x -> x.getTitle().equals(book.getTitle()) && x.getAuthor().equals(book.getAuthor()))
-                .flatMap(isFound -> {
-                    if (Boolean.FALSE.equals(isFound)) {
-                        return bookRepository.save(book);
-                    } else {
-                        return Mono.error(new DuplicateBookException(book));
-                    }
-                });
+        return bookResilience.write("insert", bookRepository.insert(book));
+    }
+
+    private Mono<Book> findById(UUID id, ContextView context) {
+        if (bookProperties.getBatching().isEnabled() && !ReadRouting.pinnedToPrimary(context)) {
+            return bookBatchLoader.load(id);
+        }
+        return bookResilience.read("findById", ReadRouting.replica(bookRepository.findById(id)))
+                .contextWrite(context);
+    }
+
+    private Mono<Book> updateMissed(UUID id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.error(new BookNotFoundException(id));
+        }
+        return bookResilience.read("findById", bookRepository.findById(id))
+                .hasElement()
+                .flatMap(exists -> Mono.error(exists
+                        ? new BookVersionMismatchException(id)
+                        : new BookNotFoundException(id)));
+    }
+
+    private Mono<BulkResultDTO> createBatch(long index, List<BookDTO> batch) {
+        List<Book> books = batch.stream()
+                .filter(bookDTO -> validator.validate(bookDTO).isEmpty())
+                .map(bookMapper::mapToEntity)
+                .toList();
+        long invalid = batch.size() - books.size();
+        return bookResilience.write("insertAll", bookRepository.insertAll(books))
+                .doOnNext(bookSearchIndex::index)
+                .map(bookMapper::mapToDTO)
+                .doOnNext(created -> bookChangeFeed.publish(BookEventType.CREATED, created.getId(), created))
+                .count()
+                .map(accepted -> new BulkResultDTO(index, accepted, books.size() - accepted, invalid));
     }
 
     /**
@@ -94,8 +347,53 @@ public class BookService {
      * @return Flux<BookDTO> that emits each book with a delay of 1 second.
      */
     public Flux<BookDTO> streamAllBooks() {
-        return bookRepository.findAll()
+        return bookMetrics.trackSubscribers("all", bookResilience.read("findAll", ReadRouting.replica(bookRepository.findAll()))
+                .map(bookMapper::mapToDTO)
+                .delayElements(Duration.ofSeconds(1)));
+    }
+
+    /**
+     * Streams book changes as they happen, shared by all subscribers.
+     *
+     * @param snapshot    Whether to emit every existing book before the live changes.
+     * @param lastEventId Id of the last event the subscriber has seen; resumes after it and skips the snapshot. An id
+     *                    that cannot be resumed, from before a restart or older than the retained history, gets a
+     *                    reset event followed by a snapshot instead.
+     * @return Flux<BookEventDTO> of snapshot and change events.
+     */
+    public Flux<BookEventDTO> streamChanges(boolean snapshot, String lastEventId) {
+        if (lastEventId != null) {
+            return bookMetrics.trackSubscribers("live", Flux.defer(() -> {
+                Long after = bookChangeFeed.sequenceOf(lastEventId);
+                if (after == null) {
+                    return resetAndSnapshot();
+                }
+                return bookChangeFeed.events(after)
+                        .onErrorResume(BookChangeFeed.MissedEventsException.class, e -> resetAndSnapshot());
+            }));
+        }
+        if (!snapshot) {
+            return bookMetrics.trackSubscribers("live", bookChangeFeed.events(null));
+        }
+        return bookMetrics.trackSubscribers("live", Flux.defer(() -> snapshotAndEvents(bookChangeFeed.currentSequence())));
+    }
+
+    private Flux<BookEventDTO> resetAndSnapshot() {
+        return Flux.defer(() -> {
+            long from = bookChangeFeed.currentSequence();
+            return Flux.concat(Mono.just(new BookEventDTO(bookChangeFeed.eventId(from), from, BookEventType.RESET, null, null)),
+                    snapshotAndEvents(from));
+        });
+    }
+
+    private Flux<BookEventDTO> snapshotAndEvents(long from) {
+        String id = bookChangeFeed.eventId(from);
+        // the snapshot stays on the primary: a lagging replica could miss changes published before `from`
+        Flux<BookEventDTO> books = bookResilience.read("findAll", bookRepository.findAll())
                 .map(bookMapper::mapToDTO)
-                .delayElements(Duration.ofSeconds(1));
+                .map(book -> new BookEventDTO(id, from, BookEventType.SNAPSHOT, book.getId(), book));
+        // more changes than the history holds while the snapshot streams: start over with a fresh snapshot
+        return Flux.concat(books, bookChangeFeed.events(from)
+                .onErrorResume(BookChangeFeed.MissedEventsException.class, e -> resetAndSnapshot()));
     }
 }
@@ -0,0 +1,89 @@
+package org.landsreyk.webfluxspring.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger timedOut = new AtomicInteger();
+
+    @Test
+    @DisplayName("Should queue requests above the limit and admit them as permits are released")
+    void testQueueAndAdmit() {
+        var limiter = limiter(route(1, 1, Duration.ofSeconds(5), Duration.ZERO));
+        var first = limiter.acquire().block();
+
+        var second = limiter.acquire().toFuture();
+        assertEquals(1, limiter.queued());
+        first.release(true);
+
+        assertNotNull(second.join());
+        assertEquals(1, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+    }
+
+    @Test
+    @DisplayName("Should reject at once when the queue is full and after the maximum wait")
+    void testReject() {
+        var limiter = limiter(route(1, 1, Duration.ofMillis(50), Duration.ZERO));
+        limiter.acquire().block();
+        var queued = limiter.acquire();
+
+        StepVerifier.create(queued.and(limiter.acquire()))
+                .expectError(AdmissionRejectedException.class)
+                .verify();
+        assertEquals(1, rejected.get());
+
+        StepVerifier.create(limiter.acquire())
+                .expectError(AdmissionRejectedException.class)
+                .verify(Duration.ofSeconds(1));
+        assertEquals(1, timedOut.get());
+        assertEquals(0, limiter.queued());
+    }
+
+    @Test
+    @DisplayName("Should decrease the limit multiplicatively on slow requests and increase it additively on fast ones")
+    void testAimd() throws InterruptedException {
+        var limiter = limiter(route(10, 10, Duration.ofSeconds(1), Duration.ofMillis(20)));
+
+        var slow = limiter.acquire().block();
+        Thread.sleep(30);
+        slow.release(true);
+        assertEquals(9.0, limiter.limit(), 0.001);
+
+        var permits = new ArrayList<AdaptiveConcurrencyLimiter.Permit>();
+        for (int i = 0; i < 9; i++) {
+            permits.add(limiter.acquire().block());
+        }
+        permits.get(0).release(true);
+        assertEquals(9.0 + 1 / 9.0, limiter.limit(), 0.001);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(BookProperties.Admission.Route route) {
+        return new AdaptiveConcurrencyLimiter(route, Schedulers.parallel(), rejected::incrementAndGet, timedOut::incrementAndGet);
+    }
+
+    private static BookProperties.Admission.Route route(int limit, int queueSize, Duration maxWait, Duration latencyTarget) {
+        var route = new BookProperties.Admission.Route();
+        route.setName("test");
+        route.setPattern("/**");
+        route.setInitialLimit(limit);
+        route.setMinLimit(1);
+        route.setMaxLimit(100);
+        route.setQueueSize(queueSize);
+        route.setMaxWait(maxWait);
+        route.setLatencyTarget(latencyTarget);
+        return route;
+    }
+}
@@ -0,0 +1,58 @@
+package org.landsreyk.webfluxspring.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConnectionPoolEnvironmentPostProcessorTest {
+
+    private final int cores = Runtime.getRuntime().availableProcessors();
+
+    @Test
+    @DisplayName("Should size both pools from the number of cores")
+    void testDefaults() {
+        var environment = new StandardEnvironment();
+
+        new ConnectionPoolEnvironmentPostProcessor().postProcessEnvironment(environment, new SpringApplication());
+
+        assertEquals(Math.max(2, cores), environment.getProperty("spring.r2dbc.pool.initial-size", Integer.class));
+        assertEquals(Math.max(4, cores * 2), environment.getProperty("spring.r2dbc.pool.max-size", Integer.class));
+        assertEquals(Math.max(2, cores), environment.getProperty("spring.datasource.hikari.minimum-idle", Integer.class));
+        assertEquals(Math.max(4, cores * 2), environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should keep pool sizes that are set explicitly")
+    void testExplicitSizesWin() {
+        var environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("application", Map.of(
+                "spring.r2dbc.pool.max-size", "7",
+                "spring.datasource.hikari.minimum-idle", "1")));
+
+        new ConnectionPoolEnvironmentPostProcessor().postProcessEnvironment(environment, new SpringApplication());
+
+        assertEquals(7, environment.getProperty("spring.r2dbc.pool.max-size", Integer.class));
+        assertEquals(1, environment.getProperty("spring.datasource.hikari.minimum-idle", Integer.class));
+        assertEquals(Math.max(2, cores), environment.getProperty("spring.r2dbc.pool.initial-size", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should size the Hikari pool like an explicitly sized R2DBC pool")
+    void testHikariFollowsExplicitR2dbcSizes() {
+        var environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("application", Map.of(
+                "spring.r2dbc.pool.initial-size", "3",
+                "spring.r2dbc.pool.max-size", "7")));
+
+        new ConnectionPoolEnvironmentPostProcessor().postProcessEnvironment(environment, new SpringApplication());
+
+        assertEquals(3, environment.getProperty("spring.datasource.hikari.minimum-idle", Integer.class));
+        assertEquals(7, environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class));
+    }
+}
@@ -0,0 +1,32 @@
+package org.landsreyk.webfluxspring.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.model.Book;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    @DisplayName("Should register the types, changelogs and drivers the native image reaches reflectively")
+    void testRuntimeHints() {
+        new NativeConfig.BookRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(Book.class, "getPublishedYear")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(BookDTO.class, "setTitle")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of(NativeConfig.MAPPER_IMPLEMENTATION))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/changelog/db.changelog-master.yaml")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/changelog/changeset-007.yaml")).accepts(hints);
+        NativeConfig.CONNECTION_FACTORY_PROVIDERS.forEach(provider ->
+                assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of(provider))).accepts(hints));
+    }
+}
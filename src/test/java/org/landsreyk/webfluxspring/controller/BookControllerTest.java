@@ -4,22 +4,38 @@ import org.jeasy.random.EasyRandom;
 import org.jeasy.random.EasyRandomParameters;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.landsreyk.webfluxspring.dto.AuthorStatsDTO;
+import org.landsreyk.webfluxspring.dto.AuthorStatsPageDTO;
 import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.dto.BookIdsDTO;
+import org.landsreyk.webfluxspring.dto.BookPageDTO;
+import org.landsreyk.webfluxspring.dto.BulkResultDTO;
 import org.landsreyk.webfluxspring.model.Book;
 import org.landsreyk.webfluxspring.repository.ReactiveDatabaseBookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
 import reactor.test.StepVerifier;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT)
 @ActiveProfiles("test")
+@AutoConfigureObservability
 class BookControllerTest {
 
     @Autowired
@@ -123,4 +139,408 @@ class BookControllerTest {
                 .expectComplete()
                 .verify();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetBooksPage_invalidCursor() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/books").queryParam("after", "not-a-cursor").queryParam("size", 10).build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .consumeWith(System.out::println)
+                .jsonPath("$.status").isEqualTo("BAD_REQUEST")
+                .jsonPath("$.error").isEqualTo("Invalid Cursor.");
+    }
+
+    @Test
+    void testCreateBooksInBulk() {
+        // given
+        var books = Flux.just(
+                new BookDTO(null, "TitleA", "AuthorA", 2020),
+                new BookDTO(null, "TitleB", "AuthorB", 2021),
+                new BookDTO(null, "TitleA", "AuthorA", 2022),
+                new BookDTO(null, "", "AuthorC", 2022),
+                new BookDTO(null, "TitleD", "AuthorD", 2023));
+
+        // when
+        var results = webTestClient.post()
+                .uri("/books/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(books, BookDTO.class)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BulkResultDTO.class)
+                .getResponseBody();
+
+        // then
+        StepVerifier.create(results)
+                .expectNext(new BulkResultDTO(0, 2, 0, 0))
+                .expectNext(new BulkResultDTO(1, 0, 1, 1))
+                .expectNext(new BulkResultDTO(2, 1, 0, 0))
+                .verifyComplete();
+        StepVerifier.create(bookRepository.count())
+                .expectNext(3L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testSearchByAuthor() {
+        // given
+        bookRepository.save(new Book("TitleA", "AuthorA", 2018)).block();
+        bookRepository.save(new Book("TitleB", "AuthorA", 2020)).block();
+        bookRepository.save(new Book("TitleC", "AuthorA", 2022)).block();
+        bookRepository.save(new Book("TitleD", "AuthorB", 2020)).block();
+
+        // when & then
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/books/search")
+                        .queryParam("author", "AuthorA")
+                        .queryParam("from", 2019)
+                        .queryParam("to", 2024)
+                        .queryParam("limit", 10)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].title").isEqualTo("TitleC")
+                .jsonPath("$[1].title").isEqualTo("TitleB");
+    }
+
+    @Test
+    void testPrometheusEndpoint() {
+        // given
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/books").queryParam("page", 0).queryParam("size", 10).build())
+                .exchange()
+                .expectStatus().isOk();
+
+        // when & then
+        webTestClient.get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(body -> assertThat(body)
+                        .contains("http_server_requests_seconds_bucket")
+                        .contains("books_db_query_seconds_count{outcome=\"success\",query=\"findPage\"")
+                        .contains("books_db_queries_seconds_bucket{outcome=\"success\"")
+                        .doesNotContain("books_db_query_seconds_bucket")
+                        .contains("r2dbc_pool_acquired_connections")
+                        .contains("books_admission_limit{route=\"books\"}"));
+    }
+
+    @Test
+    void testUpdateBook_returnRepresentation() {
+        // given
+        var id = bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block().getId();
+
+        // when & then
+        webTestClient.put()
+                .uri("/books/" + id)
+                .header("Prefer", "return=representation")
+                .bodyValue(new BookDTO(null, "NewTitle", "NewAuthor", 2020))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Preference-Applied", "return=representation")
+                .expectBody(BookDTO.class)
+                .isEqualTo(new BookDTO(id, "NewTitle", "NewAuthor", 2020));
+    }
+
+    @Test
+    void testCreateBook_ignoresClientVersion() {
+        // given
+        var bookDTO = new BookDTO(null, "TitleA", "AuthorA", 2022, 42L);
+
+        // when
+        var created = webTestClient.post()
+                .uri("/books")
+                .bodyValue(bookDTO)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookDTO.class)
+                .returnResult()
+                .getResponseBody();
+
+        // then
+        assertThat(created.getVersion()).isZero();
+        webTestClient.get()
+                .uri("/books/" + created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"");
+    }
+
+    @Test
+    void testConditionalRequests() {
+        // given
+        var id = bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block().getId();
+
+        // when & then
+        webTestClient.get()
+                .uri("/books/" + id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"");
+
+        webTestClient.get()
+                .uri("/books/" + id)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.put()
+                .uri("/books/" + id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(new BookDTO(null, "NewTitle", "NewAuthor", 2020))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+
+        webTestClient.put()
+                .uri("/books/" + id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(new BookDTO(null, "OtherTitle", "OtherAuthor", 2021))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Precondition Failed.");
+    }
+
+    @Test
+    void testCountBooks() {
+        // given
+        bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block();
+        bookRepository.save(new Book("TitleB", "AuthorB", 2023)).block();
+
+        // when & then
+        webTestClient.get()
+                .uri("/books/count")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.approximate").isEqualTo(false);
+
+        webTestClient.get()
+                .uri("/books/count?approximate=true")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.approximate").isEqualTo(true);
+    }
+
+    @Test
+    void testStats() {
+        // given
+        bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block();
+        bookRepository.save(new Book("TitleB", "AuthorA", 2020)).block();
+        bookRepository.save(new Book("TitleC", "AuthorB", 2022)).block();
+
+        // when & then
+        var firstPage = webTestClient.get()
+                .uri("/books/stats/authors?size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthorStatsPageDTO.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(firstPage.getAuthors()).containsExactly(new AuthorStatsDTO("AuthorA", 2, 2020, 2022));
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        webTestClient.get()
+                .uri("/books/stats/authors?size=1&after=" + firstPage.getNextCursor())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.authors[0].author").isEqualTo("AuthorB")
+                .jsonPath("$.authors[0].books").isEqualTo(1)
+                .jsonPath("$.nextCursor").doesNotExist();
+
+        webTestClient.get()
+                .uri("/books/stats/years")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].year").isEqualTo(2020)
+                .jsonPath("$[0].books").isEqualTo(1)
+                .jsonPath("$[1].year").isEqualTo(2022)
+                .jsonPath("$[1].books").isEqualTo(2);
+
+        webTestClient.get()
+                .uri("/books/stats/authors?size=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testSearch() {
+        // given
+        bookRepository.save(new Book("Spring Guide", "John Doe", 2021)).block();
+        bookRepository.save(new Book("Reactive Spring", "Jane Doe", 2020)).block();
+        bookRepository.save(new Book("Modern Java", "Springer Smith", 2018)).block();
+
+        // when & then
+        var firstPage = webTestClient.get()
+                .uri("/books/search?q=spr&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookPageDTO.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(firstPage.getBooks()).extracting(BookDTO::getTitle).containsExactly("Reactive Spring", "Spring Guide");
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        webTestClient.get()
+                .uri("/books/search?q=spr&size=2&after=" + firstPage.getNextCursor())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.books[0].title").isEqualTo("Modern Java")
+                .jsonPath("$.nextCursor").doesNotExist();
+
+        webTestClient.get()
+                .uri("/books/search?q=jan spr")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.books.length()").isEqualTo(1)
+                .jsonPath("$.books[0].title").isEqualTo("Reactive Spring");
+    }
+
+    @Test
+    void testExport() {
+        // given
+        bookRepository.save(new Book("Spring Guide", "John Doe", 2021)).block();
+        bookRepository.save(new Book("Reactive, \"Streams\"", "Jane Doe", 2020)).block();
+
+        // when & then
+        var ndjson = webTestClient.get()
+                .uri("/books/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .returnResult(BookDTO.class)
+                .getResponseBody();
+        StepVerifier.create(ndjson.map(BookDTO::getTitle).sort())
+                .expectNext("Reactive, \"Streams\"", "Spring Guide")
+                .verifyComplete();
+
+        webTestClient.get()
+                .uri("/books/export")
+                .accept(MediaType.parseMediaType("text/csv"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.parseMediaType("text/csv"))
+                .expectBody(String.class)
+                .value(body -> assertThat(body.lines())
+                        .hasSize(3)
+                        .first().isEqualTo("id,title,author,publishedYear,version"))
+                .value(body -> assertThat(body).contains(",\"Reactive, \"\"Streams\"\"\",Jane Doe,2020,0"));
+    }
+
+    @Test
+    void testBatchGetBooks() {
+        // given
+        var first = bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block().getId();
+        var second = bookRepository.save(new Book("TitleB", "AuthorB", 2023)).block().getId();
+        var missing = UUID.randomUUID();
+
+        // when & then
+        webTestClient.post()
+                .uri("/books/batch-get")
+                .bodyValue(new BookIdsDTO(List.of(second, missing, first)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.books[0].id").isEqualTo(second.toString())
+                .jsonPath("$.books[1].id").isEqualTo(first.toString())
+                .jsonPath("$.missing[0]").isEqualTo(missing.toString());
+
+        webTestClient.get()
+                .uri("/books?ids=" + first + "," + missing)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.books.length()").isEqualTo(1)
+                .jsonPath("$.books[0].title").isEqualTo("TitleA")
+                .jsonPath("$.missing[0]").isEqualTo(missing.toString());
+
+        webTestClient.post()
+                .uri("/books/batch-get")
+                .bodyValue(new BookIdsDTO(List.of()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.ids").isEqualTo("Ids cannot be empty");
+    }
+
+    @Test
+    void testSmileContentNegotiation() {
+        // given
+        var smile = MediaType.parseMediaType("application/x-jackson-smile");
+        var smileStream = MediaType.parseMediaType("application/stream+x-jackson-smile");
+        bookRepository.save(new Book("Spring Guide", "John Doe", 2021)).block();
+
+        // when & then
+        webTestClient.get()
+                .uri("/books?page=0&size=10")
+                .accept(smile)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(smile)
+                .expectBodyList(BookDTO.class)
+                .value(books -> assertThat(books).extracting(BookDTO::getTitle).containsExactly("Spring Guide"));
+
+        var results = webTestClient.post()
+                .uri("/books/bulk")
+                .contentType(smileStream)
+                .accept(smileStream)
+                .body(Flux.just(new BookDTO(null, "Reactive Programming", "Jane Doe", 2020)), BookDTO.class)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BulkResultDTO.class)
+                .getResponseBody();
+        StepVerifier.create(results)
+                .expectNextMatches(result -> result.getAccepted() == 1)
+                .verifyComplete();
+
+        var exported = webTestClient.get()
+                .uri("/books/export")
+                .accept(smileStream)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(smileStream)
+                .returnResult(BookDTO.class)
+                .getResponseBody();
+        StepVerifier.create(exported.map(BookDTO::getTitle).sort())
+                .expectNext("Reactive Programming", "Spring Guide")
+                .verifyComplete();
+    }
+
+    @Test
+    void testResponseCompression() {
+        // given
+        bookRepository.saveAll(IntStream.range(0, 100).mapToObj(i -> new Book("Title " + i, "Author " + i, 2000)).toList()).blockLast();
+
+        // the default connector decompresses and drops the Content-Encoding header
+        var client = webTestClient.mutate().clientConnector(new ReactorClientHttpConnector(HttpClient.create())).build();
+
+        // when & then
+        client.get()
+                .uri("/books?page=0&size=100")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        client.get()
+                .uri("/books/count")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING);
+    }
+}
@@ -0,0 +1,52 @@
+package org.landsreyk.webfluxspring.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimeOrderedBookIdGeneratorTest {
+
+    /**
+     * PostgreSQL compares uuids as unsigned bytes.
+     */
+    private static final Comparator<UUID> DATABASE_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    @Test
+    @DisplayName("Should generate version 7 ids carrying the creation time")
+    void testLayout() {
+        long millis = 1_760_000_000_000L;
+        UUID id = new TimeOrderedBookIdGenerator(() -> millis).next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(millis, id.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    @DisplayName("Should keep ids increasing within a millisecond and when the clock steps back")
+    void testMonotonic() {
+        var clock = new AtomicLong(1_760_000_000_000L);
+        var generator = new TimeOrderedBookIdGenerator(clock::get);
+
+        List<UUID> ids = new ArrayList<>();
+        IntStream.range(0, 5_000).forEach(i -> ids.add(generator.next()));
+        clock.addAndGet(-1_000);
+        IntStream.range(0, 10).forEach(i -> ids.add(generator.next()));
+        clock.addAndGet(10_000);
+        ids.add(generator.next());
+
+        assertThat(ids).isSortedAccordingTo(DATABASE_ORDER).doesNotHaveDuplicates();
+        assertThat(ids).isSortedAccordingTo(Comparator.naturalOrder());
+    }
+}
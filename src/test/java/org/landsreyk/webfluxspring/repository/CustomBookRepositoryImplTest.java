@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.landsreyk.webfluxspring.model.Book;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import reactor.test.StepVerifier;
 
@@ -45,4 +46,28 @@ class CustomBookRepositoryImplTest {
                 .expectNextMatches(book -> book.getTitle().equals("WebFlux in Action") && book.getPublishedYear() == 2019)
                 .verifyComplete();
     }
+
+    @Test
+    @DisplayName("Should return books by author and year range in the requested order and limit")
+    void testFindByAuthorAndYearRange_orderedAndLimited() {
+        StepVerifier.create(bookRepository.findByAuthorAndYearRange("Jane Doe", 2000, 2024, Sort.Direction.ASC, 1))
+                .expectNextMatches(book -> book.getTitle().equals("Modern Java") && book.getPublishedYear() == 2018)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should return per-author and per-year counts, paged by author")
+    void testStats() {
+        StepVerifier.create(bookRepository.findAuthorStats(null, 1))
+                .expectNextMatches(stats -> stats.getAuthor().equals("Jane Doe") && stats.getBooks() == 2
+                        && stats.getFirstYear() == 2018 && stats.getLastYear() == 2020)
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findAuthorStats("Jane Doe", 10))
+                .expectNextMatches(stats -> stats.getAuthor().equals("John Doe") && stats.getBooks() == 2
+                        && stats.getFirstYear() == 2019 && stats.getLastYear() == 2021)
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findYearStats().map(stats -> stats.getYear() + ":" + stats.getBooks()))
+                .expectNext("2018:1", "2019:1", "2020:1", "2021:1")
+                .verifyComplete();
+    }
 }
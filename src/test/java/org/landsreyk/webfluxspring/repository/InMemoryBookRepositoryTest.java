@@ -0,0 +1,134 @@
+package org.landsreyk.webfluxspring.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.model.Book;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryBookRepositoryTest {
+
+    private InMemoryBookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = new InMemoryBookRepository();
+        bookRepository.save(new Book(UUID.randomUUID(), "Spring Guide", "John Doe", 2021)).block();
+        bookRepository.save(new Book(UUID.randomUUID(), "Reactive Programming", "Jane Doe", 2020)).block();
+        bookRepository.save(new Book(UUID.randomUUID(), "WebFlux in Action", "John Doe", 2019)).block();
+        bookRepository.save(new Book(UUID.randomUUID(), "Modern Java", "Jane Doe", 2018)).block();
+    }
+
+    @Test
+    @DisplayName("Should return books by author and year range from the author index")
+    void testFindByAuthorAndYearRange() {
+        StepVerifier.create(bookRepository.findByAuthorAndYearRange("John Doe", 2019, 2021))
+                .expectNextMatches(book -> book.getTitle().equals("Spring Guide"))
+                .expectNextMatches(book -> book.getTitle().equals("WebFlux in Action"))
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findByAuthorAndYearRange("John Doe", 2019, 2021, Sort.Direction.ASC, 1))
+                .expectNextMatches(book -> book.getTitle().equals("WebFlux in Action"))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should keep the author index in step with updates")
+    void testUpdate_reindexesAuthor() {
+        // given
+        var book = bookRepository.findAll().blockFirst();
+        book.setAuthor("Jane Doe");
+
+        // when
+        var rowsUpdated = bookRepository.update(book).block();
+
+        // then
+        assertEquals(1L, rowsUpdated);
+        StepVerifier.create(bookRepository.findByAuthorAndYearRange("John Doe", 1900, 2024))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findByAuthorAndYearRange("Jane Doe", 1900, 2024))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should keep author and year stats in step with writes")
+    void testStats() {
+        // given
+        var book = bookRepository.findAll().blockFirst();
+        book.setAuthor("Ann Roe");
+        book.setPublishedYear(2020);
+
+        // when
+        bookRepository.update(book).block();
+        bookRepository.deleteById(bookRepository.findByAuthorAndYearRange("John Doe", 2019, 2019).blockFirst().getId()).block();
+
+        // then
+        StepVerifier.create(bookRepository.findAuthorStats(null, 10).map(stats -> stats.getAuthor() + ":" + stats.getBooks()))
+                .expectNext("Ann Roe:1", "Jane Doe:2")
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findAuthorStats("Ann Roe", 10))
+                .expectNextMatches(stats -> stats.getFirstYear() == 2018 && stats.getLastYear() == 2020)
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findYearStats().map(stats -> stats.getYear() + ":" + stats.getBooks()))
+                .expectNext("2018:1", "2020:2")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should reject a second book with the same author and title")
+    void testInsert_duplicate() {
+        StepVerifier.create(bookRepository.insert(new Book("Spring Guide", "John Doe", 2000)))
+                .expectError(DuplicateBookException.class)
+                .verify();
+        StepVerifier.create(bookRepository.count())
+                .expectNext(4L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should return keyset pages that cover every book exactly once")
+    void testFindPageAfter() {
+        var first = bookRepository.findPageAfter(null, 3).collectList().block();
+        var second = bookRepository.findPageAfter(first.get(2).getId(), 3).collectList().block();
+
+        assertEquals(3, first.size());
+        assertEquals(1, second.size());
+        assertEquals(4, Flux.concat(Flux.fromIterable(first), Flux.fromIterable(second)).map(Book::getId).distinct().count().block());
+    }
+
+    @Test
+    @DisplayName("Should keep the count exact under concurrent writes")
+    void testConcurrentInsertsAndDeletes() {
+        // when
+        var inserted = Flux.range(0, 1_000)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> bookRepository.insert(new Book("Title" + i, "Author" + i % 10, 2000)))
+                .sequential()
+                .collectList()
+                .block();
+        Flux.fromIterable(inserted.subList(0, 500))
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(book -> bookRepository.deleteById(book.getId()))
+                .sequential()
+                .blockLast();
+
+        // then
+        StepVerifier.create(bookRepository.countBooks())
+                .expectNext(504L)
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findAll().count())
+                .expectNext(504L)
+                .verifyComplete();
+    }
+}
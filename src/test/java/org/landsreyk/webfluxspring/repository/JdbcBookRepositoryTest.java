@@ -0,0 +1,91 @@
+package org.landsreyk.webfluxspring.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.model.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:jdbctest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.liquibase.url=jdbc:h2:mem:jdbctest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"})
+@ActiveProfiles({"test", "webflux-jdbc"})
+class JdbcBookRepositoryTest {
+
+    @Autowired
+    private ReactiveDatabaseBookRepository bookRepository;
+
+    private final Book springGuide = new Book(UUID.randomUUID(), "Spring Guide", "John Doe", 2021);
+    private final Book webFlux = new Book(UUID.randomUUID(), "WebFlux in Action", "John Doe", 2019);
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll().block();
+        bookRepository.save(springGuide).block();
+        bookRepository.save(new Book(UUID.randomUUID(), "Reactive Programming", "Jane Doe", 2020)).block();
+        bookRepository.save(webFlux).block();
+        bookRepository.save(new Book(UUID.randomUUID(), "Modern Java", "Jane Doe", 2018)).block();
+    }
+
+    @Test
+    @DisplayName("Should serve the repository from JDBC on virtual threads")
+    void testRunsOnVirtualThreads() {
+        assertThat(bookRepository).isInstanceOf(JdbcBookRepository.class);
+        StepVerifier.create(bookRepository.countExact().map(count -> Thread.currentThread().isVirtual()))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findByAuthorAndYearRange("John Doe", 2019, 2021, Sort.Direction.ASC, 1))
+                .expectNextMatches(book -> book.getTitle().equals("WebFlux in Action"))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should reject duplicates on insert and skip them in batches")
+    void testInsertDuplicates() {
+        StepVerifier.create(bookRepository.insert(new Book(UUID.randomUUID(), "Spring Guide", "John Doe", 2022)))
+                .expectError(DuplicateBookException.class)
+                .verify();
+
+        var fresh = new Book(UUID.randomUUID(), "Effective Java", "Joshua Bloch", 2018);
+        StepVerifier.create(bookRepository.insertAll(List.of(new Book(UUID.randomUUID(), "Modern Java", "Jane Doe", 2018), fresh)))
+                .expectNextMatches(book -> book.getId().equals(fresh.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should update by version and read books by ids, in chunks and as stats")
+    void testUpdateAndRead() {
+        var updated = new Book(springGuide.getId(), "Spring Guide, 2nd Edition", "John Doe", 2023);
+        StepVerifier.create(bookRepository.updateIfVersion(updated, 1)).expectNext(0L).verifyComplete();
+        StepVerifier.create(bookRepository.updateIfVersion(updated, 0)).expectNext(1L).verifyComplete();
+        StepVerifier.create(bookRepository.findById(springGuide.getId()))
+                .expectNextMatches(book -> book.getTitle().equals("Spring Guide, 2nd Edition") && book.getVersion() == 1)
+                .verifyComplete();
+
+        StepVerifier.create(bookRepository.findAllByIds(List.of(springGuide.getId(), webFlux.getId(), UUID.randomUUID())).count())
+                .expectNext(2L)
+                .verifyComplete();
+        StepVerifier.create(bookRepository.streamAll(3).map(Book::getId).collectList())
+                .expectNextMatches(ids -> ids.size() == 4 && ids.stream().distinct().count() == 4)
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findAuthorStats("Jane Doe", 10))
+                .expectNextMatches(stats -> stats.getAuthor().equals("John Doe") && stats.getBooks() == 2
+                        && stats.getFirstYear() == 2019 && stats.getLastYear() == 2023)
+                .verifyComplete();
+        StepVerifier.create(bookRepository.findYearStats().count())
+                .expectNext(4L)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,136 @@
+package org.landsreyk.webfluxspring.resilience;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.landsreyk.webfluxspring.exception.BookStoreUnavailableException;
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
+import org.landsreyk.webfluxspring.metrics.BookMetrics;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookResilienceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should retry reads on transient errors but never writes")
+    void testRetryReadsOnly() {
+        var resilience = resilience(new BookProperties());
+        var attempts = new AtomicInteger();
+        var failing = Mono.<String>defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new TransientDataAccessResourceException("connection reset"));
+        });
+
+        StepVerifier.create(resilience.read("findById", failing))
+                .expectError(BookStoreUnavailableException.class)
+                .verify();
+        assertEquals(4, attempts.get());
+
+        attempts.set(0);
+        StepVerifier.create(resilience.write("insert", failing))
+                .expectError(BookStoreUnavailableException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Should report an unreachable database as unavailable without retrying")
+    void testResourceFailure() {
+        var resilience = resilience(new BookProperties());
+        var attempts = new AtomicInteger();
+        var refused = Mono.<String>defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new DataAccessResourceFailureException("connection refused",
+                    new R2dbcNonTransientResourceException("connection refused", new ConnectException("Connection refused"))));
+        });
+
+        StepVerifier.create(resilience.read("findById", refused))
+                .expectError(BookStoreUnavailableException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+
+        StepVerifier.create(resilience.write("insert", Mono.error(new R2dbcNonTransientResourceException("connection refused"))))
+                .expectError(BookStoreUnavailableException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should not retry a stream that has already emitted rows")
+    void testNoRetryAfterFirstRow() {
+        var resilience = resilience(new BookProperties());
+        var attempts = new AtomicInteger();
+        var stream = Flux.defer(() -> {
+            attempts.incrementAndGet();
+            return Flux.just("row").concatWith(Flux.error(new TransientDataAccessResourceException("connection reset")));
+        });
+
+        StepVerifier.create(resilience.read("findPage", stream))
+                .expectNext("row")
+                .expectError(BookStoreUnavailableException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Should stop retrying once the retry budget is spent")
+    void testRetryBudget() {
+        var properties = new BookProperties();
+        properties.getResilience().getRetryBudget().setRatio(0);
+        properties.getResilience().getRetryBudget().setMinPerSecond(0);
+        var resilience = resilience(properties);
+        var attempts = new AtomicInteger();
+
+        StepVerifier.create(resilience.read("findById", Mono.defer(() -> {
+                    attempts.incrementAndGet();
+                    return Mono.error(new TransientDataAccessResourceException("connection reset"));
+                })))
+                .expectError(BookStoreUnavailableException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+        assertEquals(1.0, meterRegistry.counter("books.retries.rejected", "operation", "findById").count());
+    }
+
+    @Test
+    @DisplayName("Should time out slow operations and open the circuit breaker, ignoring business errors")
+    void testTimeoutAndCircuitBreaker() {
+        var properties = new BookProperties();
+        properties.getResilience().setTimeout(Duration.ofMillis(20));
+        properties.getResilience().getCircuitBreaker().setMinimumNumberOfCalls(2);
+        properties.getResilience().getCircuitBreaker().setSlidingWindowSize(2);
+        var resilience = resilience(properties);
+
+        StepVerifier.create(resilience.write("insert", Mono.error(new DuplicateBookException("duplicate"))))
+                .expectError(DuplicateBookException.class)
+                .verify();
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(resilience.write("insert", Mono.never()))
+                    .expectErrorMessage("Operation [insert] timed out")
+                    .verify();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, resilience.circuitBreaker().getState());
+
+        var attempts = new AtomicInteger();
+        StepVerifier.create(resilience.read("findById", Mono.fromSupplier(attempts::incrementAndGet)))
+                .expectError(BookStoreUnavailableException.class)
+                .verify();
+        assertEquals(0, attempts.get());
+    }
+
+    private BookResilience resilience(BookProperties properties) {
+        return new BookResilience(properties, new BookMetrics(meterRegistry), meterRegistry);
+    }
+}
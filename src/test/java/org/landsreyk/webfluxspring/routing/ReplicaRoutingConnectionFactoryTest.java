@@ -0,0 +1,98 @@
+package org.landsreyk.webfluxspring.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaRoutingConnectionFactoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ReplicaRoutingConnectionFactory routing;
+
+    @AfterEach
+    void tearDown() {
+        routing.destroy();
+    }
+
+    @Test
+    @DisplayName("Should send marked reads to a healthy replica and everything else to the primary")
+    void testRoutesMarkedReadsToReplica() {
+        routing = new ReplicaRoutingConnectionFactory(database("primary"), Map.of("replica-1", database("replica-1")));
+        DatabaseClient client = DatabaseClient.create(routing);
+
+        StepVerifier.create(whoAmI(client)).expectNext("primary").verifyComplete();
+        StepVerifier.create(ReadRouting.replica(whoAmI(client))).expectNext("primary").verifyComplete();
+
+        routing.checkHealth(TIMEOUT).block(TIMEOUT);
+        assertEquals(1, routing.healthyReplicas());
+
+        StepVerifier.create(ReadRouting.replica(whoAmI(client))).expectNext("replica-1").verifyComplete();
+        StepVerifier.create(whoAmI(client)).expectNext("primary").verifyComplete();
+        StepVerifier.create(ReadRouting.replica(whoAmI(client)).contextWrite(ReadRouting::pinToPrimary))
+                .expectNext("primary")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should take turns between healthy replicas and skip those failing the health check")
+    void testBalancesAcrossHealthyReplicas() {
+        Map<String, ConnectionFactory> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", database("replica-1"));
+        replicas.put("replica-2", database("replica-2"));
+        replicas.put("replica-3", new UnreachableConnectionFactory());
+        routing = new ReplicaRoutingConnectionFactory(database("primary"), replicas);
+        routing.checkHealth(TIMEOUT).block(TIMEOUT);
+        assertEquals(2, routing.healthyReplicas());
+
+        DatabaseClient client = DatabaseClient.create(routing);
+        StepVerifier.create(Flux.range(0, 4).concatMap(i -> ReadRouting.replica(whoAmI(client))).collectList())
+                .expectNextMatches(names -> names.stream().filter("replica-1"::equals).count() == 2
+                        && names.stream().filter("replica-2"::equals).count() == 2)
+                .verifyComplete();
+    }
+
+    private static Mono<String> whoAmI(DatabaseClient client) {
+        return client.sql("SELECT name FROM whoami")
+                .map(row -> row.get("name", String.class))
+                .one();
+    }
+
+    private static ConnectionFactory database(String name) {
+        ConnectionFactory factory = ConnectionFactories.get("r2dbc:h2:mem:///routing-" + name + "?options=DB_CLOSE_DELAY=-1");
+        DatabaseClient client = DatabaseClient.create(factory);
+        client.sql("CREATE TABLE IF NOT EXISTS whoami (name varchar(32))").then()
+                .then(client.sql("DELETE FROM whoami").then())
+                .then(client.sql("INSERT INTO whoami (name) VALUES (:name)").bind("name", name).then())
+                .block(TIMEOUT);
+        return factory;
+    }
+
+    private static class UnreachableConnectionFactory implements ConnectionFactory {
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Mono.error(new IllegalStateException("connection refused"));
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return () -> "H2";
+        }
+    }
+}
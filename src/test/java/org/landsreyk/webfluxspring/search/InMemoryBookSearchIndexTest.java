@@ -0,0 +1,65 @@
+package org.landsreyk.webfluxspring.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.landsreyk.webfluxspring.model.Book;
+import org.landsreyk.webfluxspring.repository.InMemoryBookRepository;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+class InMemoryBookSearchIndexTest {
+
+    private InMemoryBookSearchIndex searchIndex;
+    private Book springGuide;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryBookRepository bookRepository = new InMemoryBookRepository();
+        springGuide = bookRepository.save(new Book(UUID.randomUUID(), "Spring Guide", "John Doe", 2021)).block();
+        bookRepository.save(new Book(UUID.randomUUID(), "Reactive Spring", "Jane Doe", 2020)).block();
+        bookRepository.save(new Book(UUID.randomUUID(), "WebFlux in Action", "Springer Smith", 2019)).block();
+        bookRepository.save(new Book(UUID.randomUUID(), "Modern Java", "Jane Doe", 2018)).block();
+        searchIndex = new InMemoryBookSearchIndex(bookRepository);
+        searchIndex.load();
+    }
+
+    @Test
+    @DisplayName("Should rank title words above title prefixes above author matches")
+    void testSearch_ranked() {
+        StepVerifier.create(searchIndex.search("spring", 0, 10))
+                .expectNextMatches(book -> book.getTitle().equals("Reactive Spring"))
+                .expectNextMatches(book -> book.getTitle().equals("Spring Guide"))
+                .expectNextMatches(book -> book.getTitle().equals("WebFlux in Action"))
+                .verifyComplete();
+        StepVerifier.create(searchIndex.search("spring", 1, 1))
+                .expectNextMatches(book -> book.getTitle().equals("Spring Guide"))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should require every term to prefix a word of the title or the author")
+    void testSearch_allTermsAsPrefixes() {
+        StepVerifier.create(searchIndex.search("Jan Mod", 0, 10))
+                .expectNextMatches(book -> book.getTitle().equals("Modern Java"))
+                .verifyComplete();
+        StepVerifier.create(searchIndex.search("doe action", 0, 10))
+                .verifyComplete();
+        StepVerifier.create(searchIndex.search("  -- ", 0, 10))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should reflect updates and removals")
+    void testIndexAndRemove() {
+        searchIndex.index(new Book(springGuide.getId(), "Kotlin Guide", "John Doe", 2021));
+        StepVerifier.create(searchIndex.search("guide", 0, 10))
+                .expectNextMatches(book -> book.getTitle().equals("Kotlin Guide"))
+                .verifyComplete();
+
+        searchIndex.remove(springGuide.getId());
+        StepVerifier.create(searchIndex.search("guide", 0, 10))
+                .verifyComplete();
+    }
+}
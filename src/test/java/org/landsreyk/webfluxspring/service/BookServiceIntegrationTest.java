@@ -1,24 +1,36 @@
 package org.landsreyk.webfluxspring.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.landsreyk.webfluxspring.dto.BookDTO;
+import org.landsreyk.webfluxspring.dto.BookEventType;
 import org.landsreyk.webfluxspring.exception.BookNotFoundException;
+import org.landsreyk.webfluxspring.exception.BookVersionMismatchException;
+import org.landsreyk.webfluxspring.exception.DuplicateBookException;
 import org.landsreyk.webfluxspring.model.Book;
 import org.landsreyk.webfluxspring.repository.ReactiveDatabaseBookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -31,6 +43,15 @@ class BookServiceIntegrationTest {
     @Autowired
     private ReactiveDatabaseBookRepository bookRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BookChangeFeed bookChangeFeed;
+
+    @Value("${books.stream.history-size}")
+    private int historySize;
+
     @BeforeEach
     void setUp() {
         bookRepository.deleteAll().block();
@@ -42,9 +63,9 @@ class BookServiceIntegrationTest {
         // given
         var bookDTO = new BookDTO(UUID.randomUUID(), "Title", "Author", 2022);
 
-        // when & then
+        // when & then, the id sent by the client is replaced with a generated one
         StepVerifier.create(bookService.create(bookDTO))
-                .expectNextMatches(dto -> dto.getTitle().equals("Title"))
+                .expectNextMatches(dto -> dto.getTitle().equals("Title") && !dto.getId().equals(bookDTO.getId()))
                 .verifyComplete();
     }
 
@@ -161,4 +182,257 @@ class BookServiceIntegrationTest {
         step.verifyComplete();
     }
 
-}
\ No newline at end of file
+    @Test
+    @Order(9)
+    void testGetPage_walksCatalogWithCursor() {
+        // given
+        for (int i = 1; i <= 25; i++) {
+            bookRepository.save(new Book("Title" + i, "Author" + i, 2022)).block();
+        }
+
+        // when
+        var first = bookService.getPage(null, 10).block();
+        var second = bookService.getPage(first.getNextCursor(), 10).block();
+        var third = bookService.getPage(second.getNextCursor(), 10).block();
+
+        // then
+        assertEquals(10, first.getBooks().size());
+        assertEquals(10, second.getBooks().size());
+        assertEquals(5, third.getBooks().size());
+        assertNull(third.getNextCursor());
+        var ids = Stream.of(first, second, third)
+                .flatMap(page -> page.getBooks().stream())
+                .map(BookDTO::getId)
+                .distinct()
+                .count();
+        assertEquals(25, ids);
+    }
+
+    @Test
+    @Order(10)
+    void testCreateBook_duplicate() {
+        // given
+        bookService.create(new BookDTO(null, "Title", "Author", 2022)).block();
+
+        // when & then
+        StepVerifier.create(bookService.create(new BookDTO(null, "Title", "Author", 2020)))
+                .expectError(DuplicateBookException.class)
+                .verify();
+        StepVerifier.create(bookService.countBooks())
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(11)
+    void testStreamChanges_live() {
+        // given
+        var bookDTO = new BookDTO(null, "Title", "Author", 2022);
+
+        // when & then
+        StepVerifier.create(bookService.streamChanges(false, null))
+                .then(() -> bookService.create(bookDTO).block())
+                .expectNextMatches(event -> event.getType() == BookEventType.CREATED && event.getBook().getTitle().equals("Title"))
+                .then(() -> bookService.delete(bookRepository.findAll().blockFirst().getId()).block())
+                .expectNextMatches(event -> event.getType() == BookEventType.DELETED && event.getBook() == null)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @Order(12)
+    void testStreamChanges_resumeAfterLastEventId() {
+        // given
+        var first = bookService.streamChanges(false, null);
+        var lastSeen = new AtomicReference<String>();
+        StepVerifier.create(first)
+                .then(() -> bookService.create(new BookDTO(null, "TitleA", "AuthorA", 2022)).block())
+                .consumeNextWith(event -> lastSeen.set(event.getId()))
+                .thenCancel()
+                .verify();
+        bookService.create(new BookDTO(null, "TitleB", "AuthorB", 2022)).block();
+        bookService.create(new BookDTO(null, "TitleC", "AuthorC", 2022)).block();
+
+        // when & then
+        StepVerifier.create(bookService.streamChanges(true, lastSeen.get()))
+                .expectNextMatches(event -> event.getBook().getTitle().equals("TitleB"))
+                .expectNextMatches(event -> event.getBook().getTitle().equals("TitleC"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @Order(13)
+    void testStreamChanges_resetAfterRestart() {
+        // given
+        bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block();
+        var lastEventIdBeforeRestart = "1-" + bookChangeFeed.currentSequence();
+
+        // when & then
+        StepVerifier.create(bookService.streamChanges(false, lastEventIdBeforeRestart))
+                .expectNextMatches(event -> event.getType() == BookEventType.RESET && event.getBook() == null)
+                .expectNextMatches(event -> event.getType() == BookEventType.SNAPSHOT && event.getBook().getTitle().equals("TitleA"))
+                .then(() -> bookService.create(new BookDTO(null, "TitleB", "AuthorB", 2022)).block())
+                .expectNextMatches(event -> event.getType() == BookEventType.CREATED && event.getBook().getTitle().equals("TitleB"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @Order(14)
+    void testStreamChanges_resetAfterHistory() {
+        // given
+        var lastSeen = bookChangeFeed.eventId(bookChangeFeed.currentSequence());
+        for (int i = 0; i <= historySize; i++) {
+            bookChangeFeed.publish(BookEventType.DELETED, UUID.randomUUID(), null);
+        }
+        bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block();
+
+        // when & then
+        StepVerifier.create(bookService.streamChanges(false, lastSeen))
+                .expectNextMatches(event -> event.getType() == BookEventType.RESET
+                        && event.getId().equals(bookChangeFeed.eventId(bookChangeFeed.currentSequence())))
+                .expectNextMatches(event -> event.getType() == BookEventType.SNAPSHOT && event.getBook().getTitle().equals("TitleA"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @Order(15)
+    void testStreamChanges_withSnapshot() {
+        // given
+        bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block();
+
+        // when & then
+        StepVerifier.create(bookService.streamChanges(true, null))
+                .expectNextMatches(event -> event.getType() == BookEventType.SNAPSHOT && event.getBook().getTitle().equals("TitleA"))
+                .then(() -> bookService.create(new BookDTO(null, "TitleB", "AuthorB", 2022)).block())
+                .expectNextMatches(event -> event.getType() == BookEventType.CREATED && event.getBook().getTitle().equals("TitleB"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @Order(16)
+    void testStreamChanges_resetWhenHistoryOverflowsDuringSnapshot() {
+        // given
+        bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block();
+        bookRepository.save(new Book("TitleB", "AuthorB", 2022)).block();
+
+        // when & then, the snapshot is held after its first book while more changes than the history holds land
+        StepVerifier.create(bookService.streamChanges(true, null), 1)
+                .expectNextMatches(event -> event.getType() == BookEventType.SNAPSHOT)
+                .then(() -> {
+                    for (int i = 0; i <= historySize; i++) {
+                        bookChangeFeed.publish(BookEventType.DELETED, UUID.randomUUID(), null);
+                    }
+                })
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextMatches(event -> event.getType() == BookEventType.SNAPSHOT)
+                .expectNextMatches(event -> event.getType() == BookEventType.RESET
+                        && event.getId().equals(bookChangeFeed.eventId(bookChangeFeed.currentSequence())))
+                .expectNextMatches(event -> event.getType() == BookEventType.SNAPSHOT)
+                .expectNextMatches(event -> event.getType() == BookEventType.SNAPSHOT)
+                .then(() -> bookService.create(new BookDTO(null, "TitleC", "AuthorC", 2022)).block())
+                .expectNextMatches(event -> event.getType() == BookEventType.CREATED && event.getBook().getTitle().equals("TitleC"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @Order(17)
+    void testUpdateBook_notFound() {
+        // given
+        var bookDTO = new BookDTO(null, "NewTitle", "NewAuthor", 2022);
+
+        // when & then
+        StepVerifier.create(bookService.update(UUID.randomUUID(), bookDTO))
+                .expectError(BookNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    @Order(18)
+    void testUpdateAndGetBook() {
+        // given
+        var id = bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block().getId();
+        var bookDTO = new BookDTO(null, "NewTitle", "NewAuthor", 2020);
+
+        // when & then
+        StepVerifier.create(bookService.updateAndGet(id, bookDTO))
+                .expectNext(new BookDTO(id, "NewTitle", "NewAuthor", 2020))
+                .verifyComplete();
+        StepVerifier.create(bookService.getById(id))
+                .expectNextMatches(dto -> dto.getTitle().equals("NewTitle") && dto.getPublishedYear() == 2020)
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(19)
+    void testUpdateAndGetBook_versionMismatch() {
+        // given
+        var id = bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block().getId();
+        var bookDTO = new BookDTO(null, "NewTitle", "NewAuthor", 2020);
+
+        // when & then
+        StepVerifier.create(bookService.updateAndGet(id, bookDTO, 0L))
+                .expectNextMatches(dto -> dto.getVersion() == 1L)
+                .verifyComplete();
+        StepVerifier.create(bookService.updateAndGet(id, bookDTO, 0L))
+                .expectError(BookVersionMismatchException.class)
+                .verify();
+        StepVerifier.create(bookService.updateAndGet(UUID.randomUUID(), bookDTO, 0L))
+                .expectError(BookNotFoundException.class)
+                .verify();
+        StepVerifier.create(bookService.getById(id))
+                .expectNextMatches(dto -> dto.getVersion() == 1L)
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(20)
+    void testGetByIds() {
+        // given
+        var first = bookRepository.save(new Book("TitleA", "AuthorA", 2022)).block().getId();
+        var second = bookRepository.save(new Book("TitleB", "AuthorB", 2023)).block().getId();
+        var missing = UUID.randomUUID();
+        bookService.getById(first).block();
+        bookRepository.deleteById(first).block();
+
+        // when & then
+        StepVerifier.create(bookService.getByIds(List.of(second, missing, first, second)))
+                .assertNext(batch -> {
+                    assertEquals(List.of(second, first), batch.getBooks().stream().map(BookDTO::getId).toList());
+                    assertEquals(List.of(missing), batch.getMissing());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(21)
+    void testGetByIdBatchesConcurrentLookups() {
+        // given
+        var ids = Flux.range(0, 20)
+                .concatMap(i -> bookRepository.save(new Book("Title" + i, "Author" + i, 2022)))
+                .map(Book::getId)
+                .collectList()
+                .block();
+        var missing = UUID.randomUUID();
+        var batchSizes = meterRegistry.summary("books.batch.size");
+        long batches = batchSizes.count();
+        double batchedIds = batchSizes.totalAmount();
+
+        // when
+        var lookups = Flux.concat(Flux.fromIterable(ids), Flux.fromIterable(ids), Flux.just(missing))
+                .flatMap(id -> bookService.getById(id)
+                        .map(BookDTO::getId)
+                        .onErrorResume(BookNotFoundException.class, e -> Mono.empty()));
+
+        // then
+        StepVerifier.create(lookups.collectList())
+                .assertNext(found -> assertEquals(40, found.size()))
+                .verifyComplete();
+        assertEquals(21, batchSizes.totalAmount() - batchedIds);
+        assertTrue(batchSizes.count() - batches < 21, "lookups were not batched");
+    }
+}
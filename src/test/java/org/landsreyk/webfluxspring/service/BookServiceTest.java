@@ -1,17 +1,32 @@
 package org.landsreyk.webfluxspring.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.landsreyk.webfluxspring.config.BookProperties;
+import org.landsreyk.webfluxspring.dto.BookDTO;
 import org.landsreyk.webfluxspring.mapper.BookMapper;
+import org.landsreyk.webfluxspring.metrics.BookMetrics;
+import org.landsreyk.webfluxspring.model.Book;
 import org.landsreyk.webfluxspring.repository.ReactiveDatabaseBookRepository;
+import org.landsreyk.webfluxspring.resilience.BookResilience;
+import org.landsreyk.webfluxspring.routing.ReadRouting;
+import org.landsreyk.webfluxspring.search.BookSearchIndex;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.TransientDataAccessResourceException;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,9 +38,37 @@ class BookServiceTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookChangeFeed bookChangeFeed;
+
+    @Spy
+    private BookCache bookCache = new BookCache(properties(), new SimpleMeterRegistry());
+
+    @Spy
+    private BookMetrics bookMetrics = new BookMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private BookResilience bookResilience = new BookResilience(new BookProperties(), bookMetrics, new SimpleMeterRegistry());
+
+    /**
+     * Lookups go to {@code findById} one by one, batching is covered by {@link BookServiceIntegrationTest}.
+     */
+    @Spy
+    private BookProperties bookProperties = properties();
+
     @InjectMocks
     private BookService bookService;
 
+    private static BookProperties properties() {
+        var properties = new BookProperties();
+        properties.getBatching().setEnabled(false);
+        properties.getReplicas().setEnabled(true);
+        return properties;
+    }
+
     @Test
     void testGetById_onException() {
         // given
@@ -34,7 +77,73 @@ class BookServiceTest {
 
         // when & then
         StepVerifier.create(bookService.getById(someId))
-                .expectErrorMatches(ex -> ex.getMessage().equals("Error while fetching a book with id = " + someId))
+                .expectErrorMatches(ex -> ex instanceof IllegalStateException && ex.getMessage().equals("some random error"))
                 .verify();
+        verify(bookRepository, times(1)).findById(someId);
+    }
+
+    @Test
+    void testGetById_retriesTransientError() {
+        // given
+        var book = new Book("Title", "Author", 2022);
+        var bookDTO = new BookDTO(book.getId(), "Title", "Author", 2022);
+        var attempts = new AtomicInteger();
+        when(bookRepository.findById(book.getId())).thenReturn(Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.error(new TransientDataAccessResourceException("connection reset"))
+                : Mono.just(book)));
+        when(bookMapper.mapToDTO(book)).thenReturn(bookDTO);
+
+        // when & then
+        StepVerifier.create(bookService.getById(book.getId()))
+                .expectNext(bookDTO)
+                .verifyComplete();
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testGetById_servedFromCache() {
+        // given
+        var book = new Book("Title", "Author", 2022);
+        var bookDTO = new BookDTO(book.getId(), "Title", "Author", 2022);
+        when(bookRepository.findById(book.getId())).thenReturn(Mono.just(book));
+        when(bookMapper.mapToDTO(book)).thenReturn(bookDTO);
+
+        // when & then
+        StepVerifier.create(bookService.getById(book.getId()))
+                .expectNext(bookDTO)
+                .verifyComplete();
+        StepVerifier.create(bookService.getById(book.getId()))
+                .expectNext(bookDTO)
+                .verifyComplete();
+        verify(bookRepository, times(1)).findById(book.getId());
+    }
+
+    @Test
+    void testGetById_readYourWritesAfterLaggingReplica() {
+        // given, the replica still returns the book from before the update
+        var id = UUID.randomUUID();
+        var stale = new Book(id, "Title", "Author", 2022);
+        var updated = new BookDTO(id, "NewTitle", "Author", 2022);
+        when(bookRepository.update(any(Book.class))).thenReturn(Mono.just(1L));
+        when(bookRepository.findById(id)).thenReturn(Mono.deferContextual(context -> Mono.just(ReadRouting.pinnedToPrimary(context)
+                ? new Book(id, "NewTitle", "Author", 2022)
+                : stale)));
+        when(bookMapper.mapToDTO(any(Book.class))).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            return new BookDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedYear());
+        });
+        bookService.update(id, updated).block();
+
+        // when & then, the stale row is not cached and the client that wrote reads its own write
+        StepVerifier.create(bookService.getById(id))
+                .expectNextMatches(book -> book.getTitle().equals("Title"))
+                .verifyComplete();
+        StepVerifier.create(bookService.getById(id).contextWrite(ReadRouting::pinToPrimary))
+                .expectNext(updated)
+                .verifyComplete();
+        StepVerifier.create(bookService.getById(id))
+                .expectNextMatches(book -> book.getTitle().equals("Title"))
+                .verifyComplete();
+        verify(bookRepository, times(3)).findById(id);
     }
-}
\ No newline at end of file
+}